@@ -0,0 +1,56 @@
+package com.studybuddy.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prepara currency_rates para el upsert del refresco de tasas: elimina las filas
+ * duplicadas por (base, target, fecha) que dejaban las versiones anteriores (se conserva
+ * la más reciente) y crea la clave única. Si la clave ya existe no hace nada.
+ * El SQL es de MySQL (information_schema, DELETE con JOIN): en otras bases de datos
+ * (H2 en los tests) no se ejecuta y la clave única la crea Hibernate desde la entidad.
+ */
+@Component
+public class CurrencyRateMigration implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CurrencyRateMigration.class);
+
+    private static final String UNIQUE_KEY = "uk_currency_pair_date";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CurrencyRateMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(String... args) {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"MySQL".equalsIgnoreCase(product) && !"MariaDB".equalsIgnoreCase(product)) {
+            logger.debug("Migración de currency_rates omitida en {}", product);
+            return;
+        }
+
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = 'currency_rates' AND index_name = ?",
+                Integer.class, UNIQUE_KEY);
+        if (existing != null && existing > 0) {
+            return;
+        }
+
+        int removed = jdbcTemplate.update(
+                "DELETE cr FROM currency_rates cr JOIN currency_rates newer " +
+                "ON newer.base_currency = cr.base_currency AND newer.target_currency = cr.target_currency " +
+                "AND newer.rate_date = cr.rate_date AND newer.id > cr.id");
+        jdbcTemplate.execute("ALTER TABLE currency_rates ADD CONSTRAINT " + UNIQUE_KEY +
+                " UNIQUE (base_currency, target_currency, rate_date)");
+
+        logger.info("Clave única {} creada en currency_rates ({} filas duplicadas eliminadas)", UNIQUE_KEY, removed);
+    }
+}
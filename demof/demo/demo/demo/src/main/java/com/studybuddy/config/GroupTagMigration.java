@@ -0,0 +1,57 @@
+package com.studybuddy.config;
+
+import com.studybuddy.model.StudyGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Migración de la columna CSV study_groups.tags a la tabla group_tags.
+ * Solo procesa grupos que todavía no tienen filas en group_tags, así que es
+ * idempotente y puede ejecutarse en cada arranque.
+ */
+@Component
+public class GroupTagMigration implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupTagMigration.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public GroupTagMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(String... args) {
+        List<Object[]> pending = new ArrayList<>();
+        int[] groups = {0};
+
+        jdbcTemplate.query(
+                "SELECT g.id, g.tags FROM study_groups g " +
+                "WHERE g.tags IS NOT NULL AND g.tags <> '' " +
+                "AND NOT EXISTS (SELECT 1 FROM group_tags t WHERE t.group_id = g.id)",
+                rs -> {
+                    long groupId = rs.getLong(1);
+                    for (String tag : StudyGroup.parseTagsCsv(rs.getString(2))) {
+                        pending.add(new Object[]{groupId, tag});
+                    }
+                    groups[0]++;
+                });
+
+        for (int from = 0; from < pending.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate("INSERT IGNORE INTO group_tags (group_id, tag) VALUES (?, ?)",
+                    pending.subList(from, Math.min(from + BATCH_SIZE, pending.size())));
+        }
+
+        if (groups[0] > 0) {
+            logger.info("Migrados {} tags de {} grupos a group_tags", pending.size(), groups[0]);
+        }
+    }
+}
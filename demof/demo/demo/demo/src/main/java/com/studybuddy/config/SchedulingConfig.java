@@ -0,0 +1,10 @@
+package com.studybuddy.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Habilita las tareas @Scheduled (recomputación de matches en segundo plano)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
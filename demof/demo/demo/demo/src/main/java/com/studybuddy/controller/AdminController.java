@@ -1,13 +1,29 @@
 package com.studybuddy.controller;
 
+import com.studybuddy.dto.AdminStatsDTO;
+import com.studybuddy.dto.AdminUserSummary;
 import com.studybuddy.model.User;
+import com.studybuddy.service.AdminExportService;
+import com.studybuddy.service.AdminStatsService;
+import com.studybuddy.service.CurrencyService;
+import com.studybuddy.service.IntegrityCheckService;
 import com.studybuddy.service.UserService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
@@ -15,52 +31,133 @@ import java.util.stream.Collectors;
 @PreAuthorize("hasRole('ADMIN')")
 public class AdminController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final Set<String> SORTABLE_FIELDS = Set.of("id", "username", "email", "createdAt", "enabled");
+
     private final UserService userService;
+    private final AdminStatsService adminStatsService;
+    private final AdminExportService adminExportService;
+    private final IntegrityCheckService integrityCheckService;
+    private final CurrencyService currencyService;
 
-    public AdminController(UserService userService) {
+    public AdminController(UserService userService,
+                           AdminStatsService adminStatsService,
+                           AdminExportService adminExportService,
+                           IntegrityCheckService integrityCheckService,
+                           CurrencyService currencyService) {
         this.userService = userService;
+        this.adminStatsService = adminStatsService;
+        this.adminExportService = adminExportService;
+        this.integrityCheckService = integrityCheckService;
+        this.currencyService = currencyService;
     }
 
     @GetMapping("/dashboard")
     public ResponseEntity<?> getAdminDashboard() {
-        List<User> users = userService.findAll();
+        // Solo consultas COUNT/GROUP BY, sin cargar usuarios
+        AdminStatsDTO stats = adminStatsService.getDashboardStats();
         
         return ResponseEntity.ok(Map.of(
             "stats", Map.of(
-                "totalUsers", users.size(),
-                "activeUsers", "No disponible",
+                "totalUsers", stats.getTotalUsers(),
+                "activeUsers", stats.getActiveUsers(),
                 "premiumUsers", "No disponible",
-                "todayRegistrations", "No disponible"
+                "todayRegistrations", stats.getTodayRegistrations(),
+                "usersByRole", stats.getUsersByRole()
             ),
             "recentActivities", List.of(
                 "Panel de administración activo",
-                "Total usuarios: " + users.size()
+                "Total usuarios: " + stats.getTotalUsers()
             )
         ));
     }
 
+    // Invariantes de miembros de grupos y del escritor diferido del chat
+    @GetMapping("/integrity")
+    public ResponseEntity<?> checkIntegrity() {
+        return ResponseEntity.ok(integrityCheckService.check());
+    }
+
+    // Refresco manual de tasas de cambio (mismo proceso que el programado)
+    @PostMapping("/currency/refresh")
+    public ResponseEntity<?> refreshCurrencyRates() {
+        CurrencyService.RefreshResult result = currencyService.updateRatesFromApi();
+        return ResponseEntity.ok(Map.of(
+            "inserted", result.getInserted(),
+            "updated", result.getUpdated(),
+            "skipped", result.getSkipped()
+        ));
+    }
+
+    // Listado paginado: ?page=0&size=20&sort=createdAt,desc&q=...&enabled=true&role=student
     @GetMapping("/users")
-    public ResponseEntity<?> getAllUsers() {
-        List<User> users = userService.findAll();
-        
-        // Crear DTOs básicos sin depender de métodos específicos
-        List<Map<String, Object>> userList = users.stream()
+    public ResponseEntity<?> getAllUsers(@RequestParam(defaultValue = "0") int page,
+                                         @RequestParam(defaultValue = "20") int size,
+                                         @RequestParam(defaultValue = "id,asc") String sort,
+                                         @RequestParam(required = false) String q,
+                                         @RequestParam(required = false) Boolean enabled,
+                                         @RequestParam(required = false) String role) {
+        Pageable pageable = PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, MAX_PAGE_SIZE)), parseSort(sort));
+
+        Page<AdminUserSummary> result;
+        try {
+            result = userService.searchUsers(q, enabled, role, pageable);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+
+        List<Long> ids = result.getContent().stream().map(AdminUserSummary::getId).collect(Collectors.toList());
+        Map<Long, List<String>> rolesByUser = userService.findRoleNames(ids);
+
+        List<Map<String, Object>> userList = result.getContent().stream()
             .map(user -> {
-                Map<String, Object> dto = Map.of(
-                    "id", user.getId(),
-                    "username", getSafeString(user, "getUsername", ""),
-                    "email", getSafeString(user, "getEmail", "")
-                );
+                Map<String, Object> dto = new LinkedHashMap<>();
+                dto.put("id", user.getId());
+                dto.put("username", user.getUsername() != null ? user.getUsername() : "");
+                dto.put("email", user.getEmail() != null ? user.getEmail() : "");
+                dto.put("firstName", user.getFirstName() != null ? user.getFirstName() : "");
+                dto.put("lastName", user.getLastName() != null ? user.getLastName() : "");
+                dto.put("enabled", user.isEnabled());
+                dto.put("createdAt", user.getCreatedAt());
+                dto.put("roles", rolesByUser.getOrDefault(user.getId(), List.of()));
                 return dto;
             })
             .collect(Collectors.toList());
         
         return ResponseEntity.ok(Map.of(
             "users", userList,
-            "total", users.size()
+            "page", result.getNumber(),
+            "size", result.getSize(),
+            "total", result.getTotalElements(),
+            "totalPages", result.getTotalPages()
         ));
     }
 
+    // Exportación en streaming: /api/admin/export/{users|groups|messages}?format=csv|ndjson
+    @GetMapping("/export/{dataset}")
+    public ResponseEntity<?> export(@PathVariable String dataset,
+                                    @RequestParam(defaultValue = "csv") String format) {
+        if (!adminExportService.supports(dataset)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Dataset no soportado: " + dataset));
+        }
+        AdminExportService.Format exportFormat;
+        try {
+            exportFormat = AdminExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Formato no soportado: " + format));
+        }
+
+        boolean csv = exportFormat == AdminExportService.Format.CSV;
+        String filename = dataset + (csv ? ".csv" : ".ndjson");
+        StreamingResponseBody body = out -> adminExportService.export(dataset, exportFormat, out);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                                 : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8))
+                .body(body);
+    }
+
     @PutMapping("/users/{userId}/role")
     public ResponseEntity<?> updateUserRole(@PathVariable Long userId, 
                                            @RequestBody Map<String, String> request) {
@@ -120,13 +217,12 @@ public class AdminController {
         ));
     }
 
-    // Método auxiliar para obtener valores de forma segura
-    private String getSafeString(Object obj, String methodName, String defaultValue) {
-        try {
-            Object result = obj.getClass().getMethod(methodName).invoke(obj);
-            return result != null ? result.toString() : defaultValue;
-        } catch (Exception e) {
-            return defaultValue;
-        }
+    // "campo,dir" con campos permitidos; cualquier otro valor ordena por id
+    private Sort parseSort(String sort) {
+        String[] parts = sort.split(",");
+        String property = SORTABLE_FIELDS.contains(parts[0]) ? parts[0] : "id";
+        Sort.Direction direction = parts.length > 1 && "desc".equalsIgnoreCase(parts[1])
+                ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return Sort.by(direction, property);
     }
-}
\ No newline at end of file
+}
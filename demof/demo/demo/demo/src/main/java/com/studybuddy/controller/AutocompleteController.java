@@ -0,0 +1,41 @@
+package com.studybuddy.controller;
+
+import com.studybuddy.dto.ApiResponse;
+import com.studybuddy.service.AutocompleteIndex;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/autocomplete")
+public class AutocompleteController {
+
+    private final AutocompleteIndex autocompleteIndex;
+
+    public AutocompleteController(AutocompleteIndex autocompleteIndex) {
+        this.autocompleteIndex = autocompleteIndex;
+    }
+
+    // ------------------------------------------------------------
+    // SUGERENCIAS POR PREFIJO: ?q=mat&type=user|interest|subject&limit=8
+    // ------------------------------------------------------------
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<AutocompleteIndex.Suggestion>>> suggest(
+            @RequestParam String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "8") int limit) {
+
+        AutocompleteIndex.Type typeFilter = null;
+        if (type != null && !type.isBlank()) {
+            try {
+                typeFilter = AutocompleteIndex.Type.valueOf(type.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("Tipo de sugerencia no válido: " + type, null));
+            }
+        }
+
+        List<AutocompleteIndex.Suggestion> suggestions = autocompleteIndex.suggest(q, typeFilter, limit);
+        return ResponseEntity.ok(ApiResponse.success("Sugerencias", suggestions));
+    }
+}
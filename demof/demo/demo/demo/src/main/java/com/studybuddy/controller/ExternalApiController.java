@@ -7,6 +7,7 @@ import com.studybuddy.service.CurrencyService;
 import com.studybuddy.service.DniService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/api/external")
@@ -24,49 +25,42 @@ public class ExternalApiController {
     // ==========================================
     // NUEVO: ENDPOINT DE MONEDA
     // ==========================================
+    // Devuelve Mono: el hilo de Tomcat se libera mientras se espera a la API externa
     @GetMapping("/currency/convert")
-    public ResponseEntity<ApiResponse<CurrencyDTO>> convertCurrency(
+    public Mono<ResponseEntity<ApiResponse<CurrencyDTO>>> convertCurrency(
             @RequestParam String from,
             @RequestParam String to,
             @RequestParam Double amount) {
 
-        try {
-            // Usamos el servicio que ya tiene lógica de caché y API real
-            Double result = currencyService.convertCurrency(from, to, amount);
-            
-            // Calculamos la tasa implícita para mostrarla
-            Double rate = (amount != 0) ? result / amount : 0.0;
-
-            CurrencyDTO dto = new CurrencyDTO(from, to, amount, result, rate);
-            
-            return ResponseEntity.ok(ApiResponse.success("Conversión exitosa", dto));
-
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(
-                    ApiResponse.error("Error en conversión: " + e.getMessage(), null)
-            );
-        }
+        // Usamos el servicio que ya tiene lógica de caché y API real
+        return currencyService.convertCurrency(from, to, amount)
+                .map(result -> {
+                    // Calculamos la tasa implícita para mostrarla
+                    Double rate = (amount != 0) ? result / amount : 0.0;
+                    CurrencyDTO dto = new CurrencyDTO(from, to, amount, result, rate);
+                    return ResponseEntity.ok(ApiResponse.success("Conversión exitosa", dto));
+                })
+                .onErrorResume(e -> Mono.just(ResponseEntity.badRequest().body(
+                        ApiResponse.<CurrencyDTO>error("Error en conversión: " + e.getMessage(), null))));
     }
 
     // ==========================================
     // ENDPOINTS DE DNI (EXISTENTES)
     // ==========================================
     @GetMapping("/dni/{dni}")
-    public ResponseEntity<ApiResponse<DniDTO>> consultarDni(@PathVariable String dni) {
+    public Mono<ResponseEntity<ApiResponse<DniDTO>>> consultarDni(@PathVariable String dni) {
         if (!isDniValido(dni)) {
-            return ResponseEntity.badRequest().body(
+            return Mono.just(ResponseEntity.badRequest().body(
                     ApiResponse.error("DNI debe tener 8 dígitos numéricos", null)
-            );
-        }
-        try {
-            DniDTO resultado = dniService.consultarDni(dni).block();
-            if (resultado != null && resultado.isSuccess()) {
-                return ResponseEntity.ok(ApiResponse.success("DNI encontrado", resultado));
-            }
-            return ResponseEntity.ok(ApiResponse.error(resultado != null ? resultado.getError() : "No encontrado", resultado));
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().body(ApiResponse.error("Error interno: " + e.getMessage(), null));
+            ));
         }
+        return dniService.consultarDni(dni)
+                .map(resultado -> resultado.isSuccess()
+                        ? ResponseEntity.ok(ApiResponse.success("DNI encontrado", resultado))
+                        : ResponseEntity.ok(ApiResponse.error(resultado.getError(), resultado)))
+                .defaultIfEmpty(ResponseEntity.ok(ApiResponse.error("No encontrado", null)))
+                .onErrorResume(e -> Mono.just(ResponseEntity.internalServerError()
+                        .body(ApiResponse.<DniDTO>error("Error interno: " + e.getMessage(), null))));
     }
 
     @GetMapping("/dni/status")
@@ -1,12 +1,18 @@
 package com.studybuddy.controller;
 
+import com.studybuddy.dto.ChatMessageDTO;
 import com.studybuddy.model.Message;
 import com.studybuddy.model.StudyGroup;
 import com.studybuddy.model.User;
 import com.studybuddy.repository.MessageRepository;
 import com.studybuddy.repository.StudyGroupRepository;
 import com.studybuddy.repository.UserRepository;
+import com.studybuddy.service.ChatMessageCache;
+import com.studybuddy.service.ChatMessageWriter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
@@ -14,26 +20,50 @@ import org.springframework.ui.Model;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Controller
 public class GroupChatController {
 
     private static final Logger logger = LoggerFactory.getLogger(GroupChatController.class);
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    // Espera máxima del flush con durabilidad FLUSHED
+    private static final long FLUSH_WAIT_SECONDS = 10;
+
     private final StudyGroupRepository groupRepository;
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ChatMessageCache chatMessageCache;
+    private final ChatMessageWriter chatMessageWriter;
 
     public GroupChatController(StudyGroupRepository groupRepository,
                                MessageRepository messageRepository,
-                               UserRepository userRepository) {
+                               UserRepository userRepository,
+                               SimpMessagingTemplate messagingTemplate,
+                               ChatMessageCache chatMessageCache,
+                               ChatMessageWriter chatMessageWriter) {
         this.groupRepository = groupRepository;
         this.messageRepository = messageRepository;
         this.userRepository = userRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.chatMessageCache = chatMessageCache;
+        this.chatMessageWriter = chatMessageWriter;
+    }
+
+    // Destino STOMP al que se suscriben los clientes del chat de un grupo
+    public static String messagesTopic(Long groupId) {
+        return "/topic/groups/" + groupId + "/messages";
     }
 
     @GetMapping("/groups/{id}/chat")
@@ -47,26 +77,56 @@ public class GroupChatController {
         return "group/chat";
     }
 
+    // Paginación por cursor sobre (sentAt, id):
+    //  - sin cursor: los últimos 'limit' mensajes
+    //  - afterId: mensajes más nuevos que el indicado (lo que falta al cliente)
+    //  - beforeId: página anterior al indicado (scroll hacia atrás)
+    // Los mensajes se devuelven siempre del más reciente al más antiguo.
     @GetMapping("/api/groups/{id}/messages")
     @ResponseBody
-    public ResponseEntity<?> getMessages(@PathVariable Long id) {
+    public ResponseEntity<?> getMessages(@PathVariable Long id,
+                                         @RequestParam(required = false) Long afterId,
+                                         @RequestParam(required = false) Long beforeId,
+                                         @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
         try {
-            StudyGroup group = groupRepository.findById(id).orElse(null);
-            if (group == null) return ResponseEntity.notFound().build();
+            if (afterId != null && beforeId != null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Use afterId o beforeId, no ambos"));
+            }
+            if (!chatMessageCache.contains(id) && !groupRepository.existsById(id)) {
+                return ResponseEntity.notFound().build();
+            }
 
-            List<Message> messages = messageRepository.findByStudyGroupOrderBySentAtDesc(group);
-            List<Map<String,Object>> dto = messages.stream()
-                .map(m -> {
-                    Map<String, Object> msgMap = new HashMap<>();
-                    msgMap.put("id", m.getId());
-                    msgMap.put("content", m.getContent());
-                    msgMap.put("sender", m.getSender() != null ? m.getSender().getUsername() : "Sistema");
-                    msgMap.put("sentAt", m.getSentAt());
-                    msgMap.put("type", m.getMessageType());
-                    return msgMap;
-                }).collect(Collectors.toList());
-
-            return ResponseEntity.ok(Map.of("messages", dto));
+            int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            // Se pide uno extra para saber si quedan más
+            Pageable page = PageRequest.of(0, size + 1);
+
+            // Historial reciente desde memoria; solo se va a MySQL si el buffer no alcanza
+            List<ChatMessageDTO> messages = chatMessageCache.findPage(id, afterId, beforeId, size);
+            if (messages == null) {
+                if (afterId != null || beforeId != null) {
+                    Long cursorId = afterId != null ? afterId : beforeId;
+                    LocalDateTime cursorSentAt = messageRepository.findSentAtInGroup(id, cursorId).orElse(null);
+                    if (cursorSentAt == null) {
+                        return ResponseEntity.badRequest().body(Map.of("error", "Cursor inválido"));
+                    }
+                    messages = afterId != null
+                            ? messageRepository.findPageAfter(id, cursorSentAt, cursorId, page)
+                            : messageRepository.findPageBefore(id, cursorSentAt, cursorId, page);
+                } else {
+                    messages = messageRepository.findLatestPage(id, page);
+                }
+            }
+
+            boolean hasMore = messages.size() > size;
+            if (hasMore) {
+                messages = new ArrayList<>(messages.subList(0, size));
+            }
+            if (afterId != null) {
+                messages = new ArrayList<>(messages);
+                Collections.reverse(messages);
+            }
+
+            return ResponseEntity.ok(Map.of("messages", messages, "hasMore", hasMore));
         } catch (Exception ex) {
             logger.error("Error getting messages for group {}: {}", id, ex.toString(), ex);
             return ResponseEntity.status(500).body(Map.of("error", "internal_server_error"));
@@ -96,6 +156,31 @@ public class GroupChatController {
             String content = payload.getOrDefault("content", "").trim();
             if (content.isEmpty()) return ResponseEntity.badRequest().body(Map.of("error", "Empty message"));
 
+            // Modo write-behind: se encola y se persiste en lote desde ChatMessageWriter
+            if (chatMessageWriter.isEnabled()) {
+                CompletableFuture<ChatMessageDTO> pending;
+                try {
+                    pending = chatMessageWriter.enqueue(id, user.getId(), user.getUsername(), content);
+                } catch (RejectedExecutionException full) {
+                    logger.warn("Write-behind queue full, rejecting message for group {}", id);
+                    return ResponseEntity.status(503).body(Map.of("error", "Chat saturado, intenta de nuevo"));
+                }
+                // Se publica cuando el mensaje ya tiene id (después del flush)
+                pending.thenAccept(dto -> publish(id, dto));
+
+                if (chatMessageWriter.getDurability() == ChatMessageWriter.Durability.ACCEPTED) {
+                    return ResponseEntity.accepted().body(Map.of("message", "accepted"));
+                }
+                try {
+                    ChatMessageDTO saved = pending.get(FLUSH_WAIT_SECONDS, TimeUnit.SECONDS);
+                    return ResponseEntity.ok(Map.of("message", "saved", "id", saved.getId()));
+                } catch (TimeoutException slow) {
+                    // Sigue en cola o reintentándose: puede guardarse todavía, no es un error
+                    logger.warn("Flush of message for group {} still pending after {}s", id, FLUSH_WAIT_SECONDS);
+                    return ResponseEntity.accepted().body(Map.of("message", "pending"));
+                }
+            }
+
             Message m = new Message();
             m.setContent(content);
             m.setSender(user);
@@ -104,10 +189,24 @@ public class GroupChatController {
 
             logger.info("Saved message {} in group {} by user {}", saved.getId(), id, user.getUsername());
 
+            publish(id, toMessageDto(saved));
+
             return ResponseEntity.ok(Map.of("message", "saved", "id", saved.getId()));
         } catch (Exception ex) {
             logger.error("Error posting message to group {}: {}", id, ex.toString(), ex);
             return ResponseEntity.status(500).body(Map.of("error", "internal_server_error"));
         }
     }
+
+    // Los suscritos al grupo reciben solo el mensaje nuevo (sin recargar el historial)
+    private void publish(Long groupId, ChatMessageDTO dto) {
+        chatMessageCache.append(groupId, dto);
+        messagingTemplate.convertAndSend(messagesTopic(groupId), dto);
+    }
+
+    private ChatMessageDTO toMessageDto(Message m) {
+        return new ChatMessageDTO(m.getId(), m.getContent(),
+                m.getSender() != null ? m.getSender().getUsername() : null,
+                m.getSentAt(), m.getMessageType());
+    }
 }
@@ -0,0 +1,45 @@
+package com.studybuddy.controller;
+
+import com.studybuddy.dto.ApiResponse;
+import com.studybuddy.dto.BuddyMatchesDTO;
+import com.studybuddy.model.User;
+import com.studybuddy.service.MatchingService;
+import com.studybuddy.service.MatchingSnapshotService;
+import com.studybuddy.service.UserService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/matches")
+public class MatchingController {
+
+    // Límite superior de K para no devolver listas enormes
+    private static final int MAX_K = MatchingSnapshotService.SNAPSHOT_SIZE;
+
+    private final MatchingService matchingService;
+    private final UserService userService;
+
+    public MatchingController(MatchingService matchingService, UserService userService) {
+        this.matchingService = matchingService;
+        this.userService = userService;
+    }
+
+    // ------------------------------------------------------------
+    // TOP-K COMPAÑEROS COMPATIBLES DEL USUARIO AUTENTICADO
+    // ------------------------------------------------------------
+    @GetMapping
+    public ResponseEntity<ApiResponse<BuddyMatchesDTO>> getTopMatches(
+            @RequestParam(defaultValue = "10") int k,
+            @RequestParam(defaultValue = "2") int minScore,
+            Authentication authentication) {
+
+        User user = userService.findByUsernameOrEmail(authentication.getName());
+
+        int limit = Math.max(1, Math.min(k, MAX_K));
+        int threshold = Math.max(1, minScore);
+
+        BuddyMatchesDTO matches = matchingService.findTopMatches(user, limit, threshold);
+        return ResponseEntity.ok(ApiResponse.success("Compañeros encontrados", matches));
+    }
+}
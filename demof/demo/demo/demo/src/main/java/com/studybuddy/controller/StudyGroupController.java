@@ -1,7 +1,13 @@
 package com.studybuddy.controller;
 
+import com.studybuddy.dto.GroupSummaryDTO;
 import com.studybuddy.model.StudyGroup;
+import com.studybuddy.service.GroupSearchIndex;
 import com.studybuddy.service.StudyGroupService;
+import com.studybuddy.service.TagPopularityService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -10,6 +16,7 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -18,25 +25,113 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/groups")
 public class StudyGroupController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // Orden estable del listado: más recientes primero
+    public static final Sort LIST_ORDER = Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"));
+
     private final StudyGroupService groupService;
+    private final GroupSearchIndex groupSearchIndex;
+    private final TagPopularityService tagPopularityService;
 
-    public StudyGroupController(StudyGroupService groupService) {
+    public StudyGroupController(StudyGroupService groupService,
+                                GroupSearchIndex groupSearchIndex,
+                                TagPopularityService tagPopularityService) {
         this.groupService = groupService;
+        this.groupSearchIndex = groupSearchIndex;
+        this.tagPopularityService = tagPopularityService;
     }
 
     // ---------------------------------------------------------------
-    // LISTAR TODOS LOS GRUPOS
+    // LISTAR GRUPOS (paginado, una consulta de proyección por página)
+    // "groups" trae solo la página pedida (20 por defecto), ya no todos los grupos:
+    // los clientes que necesiten el listado completo deben recorrer totalPages
     // ---------------------------------------------------------------
     @GetMapping
-    public ResponseEntity<?> getAllGroups() {
+    public ResponseEntity<?> getAllGroups(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Page<GroupSummaryDTO> groups = groupService.findSummaries(PageRequest.of(Math.max(0, page), pageSize, LIST_ORDER));
 
-        List<StudyGroup> groups = groupService.findAll();
+        return ResponseEntity.ok(Map.of(
+                "groups", groups.getContent(),
+                "total", groups.getTotalElements(),
+                "totalPages", groups.getTotalPages(),
+                "page", groups.getNumber(),
+                "size", pageSize
+        ));
+    }
 
-        List<Map<String, Object>> response = groups.stream()
-                .map(this::convertToDto)
+    // ---------------------------------------------------------------
+    // BÚSQUEDA POR TEXTO (índice invertido, ordenado por relevancia)
+    // ---------------------------------------------------------------
+    @GetMapping("/search")
+    public ResponseEntity<?> searchGroups(
+            @RequestParam String q,
+            @RequestParam(required = false) String difficulty,
+            @RequestParam(required = false) Boolean isPublic,
+            @RequestParam(required = false) Boolean hasSpots,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        List<GroupSearchIndex.SearchHit> hits = groupSearchIndex.search(q, difficulty, isPublic, hasSpots);
+
+        int pageSize = Math.max(1, Math.min(size, 100));
+        int from = Math.min(Math.max(0, page) * pageSize, hits.size());
+        int to = Math.min(from + pageSize, hits.size());
+
+        List<Map<String, Object>> results = hits.subList(from, to).stream()
+                .map(hit -> {
+                    GroupSearchIndex.GroupDoc g = hit.getGroup();
+                    Map<String, Object> dto = new HashMap<>();
+                    dto.put("id", g.getId());
+                    dto.put("name", g.getName());
+                    dto.put("description", g.getDescription());
+                    dto.put("subject", g.getSubject());
+                    dto.put("difficultyLevel", g.getDifficultyLevel());
+                    dto.put("currentMembers", g.getCurrentMembers());
+                    dto.put("maxMembers", g.getMaxMembers());
+                    dto.put("isPublic", g.isPublic());
+                    dto.put("score", hit.getScore());
+                    return dto;
+                })
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(Map.of("groups", response));
+        return ResponseEntity.ok(Map.of(
+                "groups", results,
+                "total", hits.size(),
+                "page", Math.max(0, page),
+                "size", pageSize
+        ));
+    }
+
+    // ---------------------------------------------------------------
+    // BÚSQUEDA POR TAGS: ?tags=java,spring&mode=all (AND) | any (OR)
+    // ---------------------------------------------------------------
+    @GetMapping("/tags")
+    public ResponseEntity<?> findByTags(
+            @RequestParam List<String> tags,
+            @RequestParam(defaultValue = "all") String mode
+    ) {
+        boolean matchAll = !"any".equalsIgnoreCase(mode);
+        // Proyección con creador y contador de miembros: sin cargar members por grupo
+        List<GroupSummaryDTO> response = groupService.findByTags(tags, matchAll);
+
+        return ResponseEntity.ok(Map.of("groups", response, "mode", matchAll ? "all" : "any"));
+    }
+
+    // ---------------------------------------------------------------
+    // TAGS MÁS USADOS
+    // ---------------------------------------------------------------
+    @GetMapping("/tags/popular")
+    public ResponseEntity<?> popularTags(@RequestParam(defaultValue = "20") int limit) {
+        List<Map<String, Object>> tags = tagPopularityService.topTags(Math.max(1, Math.min(limit, 100))).stream()
+                .map(entry -> Map.<String, Object>of("tag", entry.getKey(), "groups", entry.getValue()))
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(Map.of("tags", tags));
     }
 
     // ---------------------------------------------------------------
@@ -93,6 +188,9 @@ public class StudyGroupController {
 
         private boolean chatEnabled = false;
 
+        // Tags separados por comas (p. ej. "java, spring, parcial")
+        private String tags;
+
         // Getters y Setters
 
         public String getName() { return name; }
@@ -112,5 +210,8 @@ public class StudyGroupController {
 
         public boolean isChatEnabled() { return chatEnabled; }
         public void setChatEnabled(boolean chatEnabled) { this.chatEnabled = chatEnabled; }
+
+        public String getTags() { return tags; }
+        public void setTags(String tags) { this.tags = tags; }
     }
 }
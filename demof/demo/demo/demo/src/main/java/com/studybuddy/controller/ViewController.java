@@ -1,15 +1,21 @@
 package com.studybuddy.controller;
 
+import com.studybuddy.dto.GroupSummaryDTO;
 import com.studybuddy.dto.RegisterRequest;
 import com.studybuddy.service.StudyGroupService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
 @Controller
 public class ViewController {
 
+    private static final int GROUPS_PAGE_SIZE = 24;
+
     private final StudyGroupService groupService;
 
     public ViewController(StudyGroupService groupService) {
@@ -48,8 +54,11 @@ public class ViewController {
     ============================ */
 
     @GetMapping({"/groups", "/user/groups"})
-    public String groupsList(Model model) {
-        model.addAttribute("groups", groupService.findAll());
+    public String groupsList(@RequestParam(defaultValue = "0") int page, Model model) {
+        Page<GroupSummaryDTO> groups = groupService.findSummaries(
+                PageRequest.of(Math.max(0, page), GROUPS_PAGE_SIZE, StudyGroupController.LIST_ORDER));
+        model.addAttribute("groups", groups.getContent());
+        model.addAttribute("groupsPage", groups);
         return "group/list";
     }
 
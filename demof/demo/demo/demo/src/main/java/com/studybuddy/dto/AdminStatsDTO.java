@@ -0,0 +1,35 @@
+package com.studybuddy.dto;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public class AdminStatsDTO {
+    private long totalUsers;
+    private long activeUsers;
+    private long todayRegistrations;
+    private Map<String, Long> usersByRole; // "ADMIN" -> 3, "STUDENT" -> 120, ...
+    private LocalDateTime generatedAt;
+    
+    // Constructor vacío
+    public AdminStatsDTO() {}
+    
+    public AdminStatsDTO(long totalUsers, long activeUsers, long todayRegistrations, Map<String, Long> usersByRole) {
+        this.totalUsers = totalUsers;
+        this.activeUsers = activeUsers;
+        this.todayRegistrations = todayRegistrations;
+        this.usersByRole = usersByRole;
+        this.generatedAt = LocalDateTime.now();
+    }
+    
+    // Getters y Setters
+    public long getTotalUsers() { return totalUsers; }
+    public void setTotalUsers(long totalUsers) { this.totalUsers = totalUsers; }
+    public long getActiveUsers() { return activeUsers; }
+    public void setActiveUsers(long activeUsers) { this.activeUsers = activeUsers; }
+    public long getTodayRegistrations() { return todayRegistrations; }
+    public void setTodayRegistrations(long todayRegistrations) { this.todayRegistrations = todayRegistrations; }
+    public Map<String, Long> getUsersByRole() { return usersByRole; }
+    public void setUsersByRole(Map<String, Long> usersByRole) { this.usersByRole = usersByRole; }
+    public LocalDateTime getGeneratedAt() { return generatedAt; }
+    public void setGeneratedAt(LocalDateTime generatedAt) { this.generatedAt = generatedAt; }
+}
@@ -0,0 +1,14 @@
+package com.studybuddy.dto;
+
+import java.time.LocalDateTime;
+
+// Proyección de solo lectura para el listado de usuarios del panel de administración
+public interface AdminUserSummary {
+    Long getId();
+    String getUsername();
+    String getEmail();
+    String getFirstName();
+    String getLastName();
+    boolean isEnabled();
+    LocalDateTime getCreatedAt();
+}
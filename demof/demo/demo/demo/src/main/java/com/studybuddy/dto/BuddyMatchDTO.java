@@ -0,0 +1,43 @@
+package com.studybuddy.dto;
+
+import com.studybuddy.model.User;
+
+public class BuddyMatchDTO {
+    private Long id;
+    private String username;
+    private String fullName;
+    private String career;
+    private String university;
+    private Integer semester;
+    private int score;
+    
+    // Constructor vacío
+    public BuddyMatchDTO() {}
+    
+    // Constructor a partir del usuario y su puntuación de compatibilidad
+    public BuddyMatchDTO(User user, int score) {
+        this.id = user.getId();
+        this.username = user.getUsername();
+        this.fullName = user.getFullName();
+        this.career = user.getCareer();
+        this.university = user.getUniversity();
+        this.semester = user.getSemester();
+        this.score = score;
+    }
+    
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getFullName() { return fullName; }
+    public void setFullName(String fullName) { this.fullName = fullName; }
+    public String getCareer() { return career; }
+    public void setCareer(String career) { this.career = career; }
+    public String getUniversity() { return university; }
+    public void setUniversity(String university) { this.university = university; }
+    public Integer getSemester() { return semester; }
+    public void setSemester(Integer semester) { this.semester = semester; }
+    public int getScore() { return score; }
+    public void setScore(int score) { this.score = score; }
+}
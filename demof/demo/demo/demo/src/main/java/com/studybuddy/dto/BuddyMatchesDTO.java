@@ -0,0 +1,23 @@
+package com.studybuddy.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class BuddyMatchesDTO {
+    private List<BuddyMatchDTO> matches;
+    private LocalDateTime computedAt; // Momento en que se precalcularon los resultados
+    
+    // Constructor vacío
+    public BuddyMatchesDTO() {}
+    
+    public BuddyMatchesDTO(List<BuddyMatchDTO> matches, LocalDateTime computedAt) {
+        this.matches = matches;
+        this.computedAt = computedAt;
+    }
+    
+    // Getters y Setters
+    public List<BuddyMatchDTO> getMatches() { return matches; }
+    public void setMatches(List<BuddyMatchDTO> matches) { this.matches = matches; }
+    public LocalDateTime getComputedAt() { return computedAt; }
+    public void setComputedAt(LocalDateTime computedAt) { this.computedAt = computedAt; }
+}
@@ -0,0 +1,27 @@
+package com.studybuddy.dto;
+
+import java.time.LocalDateTime;
+
+// Vista inmutable de un mensaje de chat; se construye directamente en la consulta JPQL
+public class ChatMessageDTO {
+    private final Long id;
+    private final String content;
+    private final String sender;
+    private final LocalDateTime sentAt;
+    private final String type;
+    
+    public ChatMessageDTO(Long id, String content, String sender, LocalDateTime sentAt, String type) {
+        this.id = id;
+        this.content = content;
+        this.sender = sender != null ? sender : "Sistema";
+        this.sentAt = sentAt;
+        this.type = type;
+    }
+    
+    // Getters
+    public Long getId() { return id; }
+    public String getContent() { return content; }
+    public String getSender() { return sender; }
+    public LocalDateTime getSentAt() { return sentAt; }
+    public String getType() { return type; }
+}
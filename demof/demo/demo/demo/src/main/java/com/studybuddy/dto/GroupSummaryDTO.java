@@ -0,0 +1,44 @@
+package com.studybuddy.dto;
+
+import java.time.LocalDateTime;
+
+// Fila del listado de grupos; se construye en la consulta JPQL (sin cargar creator, roles ni members)
+public class GroupSummaryDTO {
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final String subject;
+    private final String createdBy;
+    private final int currentMembers;
+    private final int maxMembers;
+    private final Boolean isPublic;
+    private final Boolean isChatEnabled;
+    private final LocalDateTime createdAt;
+
+    public GroupSummaryDTO(Long id, String name, String description, String subject, String createdBy,
+                           Integer currentMembers, Integer maxMembers, Boolean isPublic,
+                           Boolean isChatEnabled, LocalDateTime createdAt) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.subject = subject;
+        this.createdBy = createdBy != null ? createdBy : "Desconocido";
+        this.currentMembers = currentMembers != null ? currentMembers : 0;
+        this.maxMembers = maxMembers != null ? maxMembers : 0;
+        this.isPublic = isPublic;
+        this.isChatEnabled = isChatEnabled;
+        this.createdAt = createdAt;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public String getSubject() { return subject; }
+    public String getCreatedBy() { return createdBy; }
+    public int getCurrentMembers() { return currentMembers; }
+    public int getMaxMembers() { return maxMembers; }
+    public Boolean getIsPublic() { return isPublic; }
+    public Boolean getIsChatEnabled() { return isChatEnabled; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
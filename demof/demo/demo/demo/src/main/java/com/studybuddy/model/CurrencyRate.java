@@ -11,7 +11,10 @@ import lombok.NoArgsConstructor;
            @Index(name = "idx_currency_base", columnList = "base_currency"),
            @Index(name = "idx_currency_target", columnList = "target_currency"),
            @Index(name = "idx_currency_date", columnList = "rate_date")
-       })
+       },
+       // Una fila por par y día: el refresco hace upsert sobre esta clave
+       uniqueConstraints = @UniqueConstraint(name = "uk_currency_pair_date",
+               columnNames = {"base_currency", "target_currency", "rate_date"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
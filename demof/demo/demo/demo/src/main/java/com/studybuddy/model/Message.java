@@ -13,6 +13,7 @@ import lombok.NoArgsConstructor;
            @Index(name = "idx_message_group", columnList = "group_id"),
            @Index(name = "idx_message_sender", columnList = "sender_id"),
            @Index(name = "idx_message_sent_at", columnList = "sent_at"),
+           @Index(name = "idx_message_group_sent_at", columnList = "group_id, sent_at, id"),
            @Index(name = "idx_message_read", columnList = "is_read")
        })
 @Data
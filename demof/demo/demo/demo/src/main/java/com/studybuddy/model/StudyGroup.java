@@ -6,9 +6,15 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 @Entity
@@ -85,9 +91,22 @@ public class StudyGroup {
     @Column(name = "difficulty_level", length = 20)
     private String difficultyLevel = "Intermedio";
     
+    // Columna CSV heredada; se mantiene sincronizada con tagSet para compatibilidad
     @Column(name = "tags", length = 200)
     private String tags;
     
+    // Tags normalizados (minúsculas, sin espacios extremos) en tabla propia indexada por valor
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "group_tags",
+        joinColumns = @JoinColumn(name = "group_id", foreignKey = @ForeignKey(name = "fk_group_tags_group")),
+        indexes = @Index(name = "idx_group_tags_tag", columnList = "tag"))
+    @Column(name = "tag", nullable = false, length = TAG_MAX_LENGTH)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Set<String> tagSet = new HashSet<>();
+    
+    public static final int TAG_MAX_LENGTH = 50;
+    
     @Column(name = "location", length = 200)
     private String location;
     
@@ -118,6 +137,12 @@ public class StudyGroup {
     @Column(name = "rating_count")
     private Integer ratingCount = 0;
     
+    // Bloqueo optimista: las altas/bajas por SQL también lo incrementan, así que una edición
+    // hecha sobre una copia anterior del grupo falla en lugar de pisar current_members
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version = 0L;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -213,11 +238,45 @@ public class StudyGroup {
     
     // Agregar un tag
     public void addTag(String tag) {
-        if (tags == null || tags.isEmpty()) {
-            tags = tag;
-        } else {
-            tags += "," + tag;
+        Set<String> values = new LinkedHashSet<>(tagSet);
+        values.addAll(normalizeTags(List.of(tag)));
+        setTagValues(values);
+    }
+    
+    // Reemplaza los tags del grupo (tabla group_tags y columna CSV)
+    public void setTagValues(Collection<String> values) {
+        Set<String> normalized = normalizeTags(values);
+        tagSet.retainAll(normalized);
+        tagSet.addAll(normalized);
+        
+        // La columna CSV tiene 200 caracteres: se cortan los tags que no entran completos
+        StringBuilder csv = new StringBuilder();
+        for (String tag : normalized) {
+            if (csv.length() + tag.length() + 1 > 200) break;
+            if (csv.length() > 0) csv.append(',');
+            csv.append(tag);
         }
+        tags = csv.length() > 0 ? csv.toString() : null;
+    }
+    
+    // Minúsculas, sin espacios extremos, sin vacíos ni duplicados
+    public static Set<String> normalizeTags(Collection<String> values) {
+        Set<String> normalized = new LinkedHashSet<>();
+        if (values == null) {
+            return normalized;
+        }
+        for (String value : values) {
+            if (value == null) continue;
+            String tag = value.trim().toLowerCase();
+            if (!tag.isEmpty()) {
+                normalized.add(tag.length() > TAG_MAX_LENGTH ? tag.substring(0, TAG_MAX_LENGTH) : tag);
+            }
+        }
+        return normalized;
+    }
+    
+    public static Set<String> parseTagsCsv(String csv) {
+        return csv == null ? new LinkedHashSet<>() : normalizeTags(Arrays.asList(csv.split(",")));
     }
     
     // Obtener porcentaje de ocupación
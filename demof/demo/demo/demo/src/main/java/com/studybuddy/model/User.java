@@ -11,7 +11,11 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users",
+       indexes = {
+           @Index(name = "idx_user_enabled", columnList = "enabled"),
+           @Index(name = "idx_user_created_at", columnList = "created_at")
+       })
 public class User implements UserDetails {
     
     @Id
@@ -37,6 +41,7 @@ public class User implements UserDetails {
     private Set<Role> roles = new HashSet<>();
     
     private boolean enabled = true;
+    @Column(name = "created_at")
     private LocalDateTime createdAt;
     private LocalDateTime lastLogin;
     
@@ -29,6 +29,13 @@ public interface CurrencyRateRepository extends JpaRepository<CurrencyRate, Long
     Optional<CurrencyRate> findLatestRate(@Param("baseCurrency") String baseCurrency,
                                          @Param("targetCurrency") String targetCurrency);
     
+    // Última tasa de cada par (base, target, tasa, fecha) para cargar la tabla en memoria
+    @Query("SELECT cr.baseCurrency, cr.targetCurrency, cr.exchangeRate, cr.rateDate FROM CurrencyRate cr WHERE " +
+           "cr.rateDate = (SELECT MAX(cr2.rateDate) FROM CurrencyRate cr2 " +
+           "WHERE cr2.baseCurrency = cr.baseCurrency AND cr2.targetCurrency = cr.targetCurrency) " +
+           "ORDER BY cr.lastUpdated")
+    List<Object[]> findLatestRatePerPair();
+    
     @Query("SELECT cr FROM CurrencyRate cr WHERE cr.rateDate = CURRENT_DATE")
     List<CurrencyRate> findRatesUpdatedToday();
     
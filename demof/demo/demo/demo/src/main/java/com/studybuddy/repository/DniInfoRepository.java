@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -70,9 +71,16 @@ public interface DniInfoRepository extends JpaRepository<DniInfo, Long> {
                                Pageable pageable);
     
     @org.springframework.data.jpa.repository.Modifying
+    @Transactional
     @Query("UPDATE DniInfo d SET d.consultationCount = d.consultationCount + 1, d.consultedAt = :consultedAt WHERE d.id = :id")
     void incrementConsultationCount(@Param("id") Long id, @Param("consultedAt") LocalDateTime consultedAt);
     
+    // Igual, por número de DNI (aciertos de la caché en memoria, que no guardan el id)
+    @org.springframework.data.jpa.repository.Modifying
+    @Transactional
+    @Query("UPDATE DniInfo d SET d.consultationCount = d.consultationCount + 1, d.consultedAt = :consultedAt WHERE d.dniNumber = :dni")
+    int incrementConsultationCountByDni(@Param("dni") String dni, @Param("consultedAt") LocalDateTime consultedAt);
+    
     @Query("SELECT SUM(d.consultationCount) FROM DniInfo d")
     Long getTotalConsultations();
     
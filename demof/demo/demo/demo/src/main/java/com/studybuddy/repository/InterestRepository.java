@@ -27,6 +27,10 @@ public interface InterestRepository extends JpaRepository<Interest, Long> {
     
     List<Interest> findByIsActiveFalse();
     
+    // Proyección para el índice de autocompletado
+    @Query("SELECT i.id, i.name FROM Interest i WHERE i.isActive = true")
+    List<Object[]> findActiveInterestNames();
+    
     @Query("SELECT DISTINCT i.category FROM Interest i ORDER BY i.category")
     List<String> findAllDistinctCategories();
     
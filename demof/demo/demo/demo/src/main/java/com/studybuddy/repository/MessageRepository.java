@@ -1,5 +1,6 @@
 package com.studybuddy.repository;
 
+import com.studybuddy.dto.ChatMessageDTO;
 import com.studybuddy.model.Message;
 import com.studybuddy.model.StudyGroup;
 import com.studybuddy.model.User;
@@ -13,6 +14,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
@@ -23,6 +25,42 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     // Buscar mensajes por grupo con paginación
     Page<Message> findByStudyGroupOrderBySentAtDesc(StudyGroup studyGroup, Pageable pageable);
     
+    // ================= PAGINACIÓN POR CURSOR (sent_at, id) ===================
+    // Usan idx_message_group_sent_at (group_id, sent_at, id) y no cargan entidades
+    
+    // Posición del cursor: fecha del mensaje de referencia dentro del grupo
+    @Query("SELECT m.sentAt FROM Message m WHERE m.id = :id AND m.studyGroup.id = :groupId")
+    Optional<LocalDateTime> findSentAtInGroup(@Param("groupId") Long groupId, @Param("id") Long id);
+    
+    // Últimos mensajes del grupo (más recientes primero)
+    @Query("SELECT new com.studybuddy.dto.ChatMessageDTO(m.id, m.content, s.username, m.sentAt, m.messageType) " +
+           "FROM Message m LEFT JOIN m.sender s " +
+           "WHERE m.studyGroup.id = :groupId " +
+           "ORDER BY m.sentAt DESC, m.id DESC")
+    List<ChatMessageDTO> findLatestPage(@Param("groupId") Long groupId, Pageable pageable);
+    
+    // Mensajes posteriores al cursor (más antiguos primero)
+    @Query("SELECT new com.studybuddy.dto.ChatMessageDTO(m.id, m.content, s.username, m.sentAt, m.messageType) " +
+           "FROM Message m LEFT JOIN m.sender s " +
+           "WHERE m.studyGroup.id = :groupId AND " +
+           "(m.sentAt > :sentAt OR (m.sentAt = :sentAt AND m.id > :id)) " +
+           "ORDER BY m.sentAt ASC, m.id ASC")
+    List<ChatMessageDTO> findPageAfter(@Param("groupId") Long groupId,
+                                       @Param("sentAt") LocalDateTime sentAt,
+                                       @Param("id") Long id,
+                                       Pageable pageable);
+    
+    // Mensajes anteriores al cursor (más recientes primero)
+    @Query("SELECT new com.studybuddy.dto.ChatMessageDTO(m.id, m.content, s.username, m.sentAt, m.messageType) " +
+           "FROM Message m LEFT JOIN m.sender s " +
+           "WHERE m.studyGroup.id = :groupId AND " +
+           "(m.sentAt < :sentAt OR (m.sentAt = :sentAt AND m.id < :id)) " +
+           "ORDER BY m.sentAt DESC, m.id DESC")
+    List<ChatMessageDTO> findPageBefore(@Param("groupId") Long groupId,
+                                        @Param("sentAt") LocalDateTime sentAt,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+    
     // Buscar mensajes por remitente
     List<Message> findBySender(User sender);
     
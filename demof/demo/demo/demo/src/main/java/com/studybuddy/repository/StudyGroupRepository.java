@@ -1,15 +1,18 @@
 package com.studybuddy.repository;
 
+import com.studybuddy.dto.GroupSummaryDTO;
 import com.studybuddy.model.StudyGroup;
 import com.studybuddy.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -49,6 +52,47 @@ public interface StudyGroupRepository extends JpaRepository<StudyGroup, Long> {
     @Query("SELECT g FROM StudyGroup g JOIN g.members m WHERE m.id = :userId")
     List<StudyGroup> findByMemberId(@Param("userId") Long userId);
     
+    // ===== Altas y bajas de miembros con SQL condicional (sin cargar la colección members) =====
+    
+    // Reserva un cupo: solo afecta a la fila si queda sitio y el usuario aún no es miembro.
+    // El UPDATE bloquea la fila del grupo hasta el commit, así que las altas concurrentes se serializan.
+    @Modifying
+    @Query(value = "UPDATE study_groups SET current_members = current_members + 1, version = version + 1 " +
+           "WHERE id = :groupId AND current_members < max_members " +
+           "AND NOT EXISTS (SELECT 1 FROM group_members gm WHERE gm.group_id = :groupId AND gm.user_id = :userId)",
+           nativeQuery = true)
+    int reserveMemberSpot(@Param("groupId") Long groupId, @Param("userId") Long userId);
+    
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO group_members (group_id, user_id) VALUES (:groupId, :userId)", nativeQuery = true)
+    int insertMember(@Param("groupId") Long groupId, @Param("userId") Long userId);
+    
+    @Modifying
+    @Query(value = "DELETE FROM group_members WHERE group_id = :groupId AND user_id = :userId", nativeQuery = true)
+    int deleteMember(@Param("groupId") Long groupId, @Param("userId") Long userId);
+    
+    // Libera el cupo solo si el usuario es miembro. Igual que reserveMemberSpot, bloquea primero la
+    // fila del grupo y después lee group_members: altas y bajas toman los bloqueos en el mismo orden.
+    @Modifying
+    @Query(value = "UPDATE study_groups SET current_members = current_members - 1, version = version + 1 " +
+           "WHERE id = :groupId AND current_members > 0 " +
+           "AND EXISTS (SELECT 1 FROM group_members gm WHERE gm.group_id = :groupId AND gm.user_id = :userId)",
+           nativeQuery = true)
+    int releaseMemberSpot(@Param("groupId") Long groupId, @Param("userId") Long userId);
+    
+    // Creador, miembros actuales y máximo (para validar y explicar por qué falla un alta)
+    @Query("SELECT g.creator.id, g.currentMembers, g.maxMembers FROM StudyGroup g WHERE g.id = :groupId")
+    List<Object[]> findMembershipInfo(@Param("groupId") Long groupId);
+    
+    @Query(value = "SELECT COUNT(*) FROM group_members WHERE group_id = :groupId AND user_id = :userId", nativeQuery = true)
+    long countMembership(@Param("groupId") Long groupId, @Param("userId") Long userId);
+    
+    // Grupos cuyo contador no cuadra con group_members o que superan el máximo
+    @Query("SELECT g.id, g.name, g.currentMembers, g.maxMembers, COUNT(m) FROM StudyGroup g LEFT JOIN g.members m " +
+           "GROUP BY g.id, g.name, g.currentMembers, g.maxMembers " +
+           "HAVING g.currentMembers <> COUNT(m) OR COUNT(m) > g.maxMembers")
+    List<Object[]> findMembershipInconsistencies();
+    
     // Buscar grupos donde el usuario no es miembro (para unirse)
     @Query("SELECT g FROM StudyGroup g WHERE g.id NOT IN " +
            "(SELECT g2.id FROM StudyGroup g2 JOIN g2.members m WHERE m.id = :userId) " +
@@ -63,14 +107,24 @@ public interface StudyGroupRepository extends JpaRepository<StudyGroup, Long> {
     @Query("SELECT g FROM StudyGroup g WHERE g.currentMembers >= g.maxMembers")
     List<StudyGroup> findFullGroups();
     
-    // Buscar grupos por tags (búsqueda parcial)
-    @Query("SELECT g FROM StudyGroup g WHERE g.tags LIKE CONCAT('%', :tag, '%')")
+    // Buscar grupos por tag exacto (usa idx_group_tags_tag; el tag ya normalizado)
+    @Query("SELECT g FROM StudyGroup g JOIN g.tagSet t WHERE t = :tag")
     List<StudyGroup> findByTag(@Param("tag") String tag);
     
-    // Buscar grupos por múltiples tags
-    @Query("SELECT g FROM StudyGroup g WHERE " +
-           "(:tags IS NULL OR g.tags LIKE CONCAT('%', :tags, '%'))")
-    List<StudyGroup> findByTags(@Param("tags") String tags);
+    // Grupos activos con al menos uno de los tags (OR)
+    @Query("SELECT DISTINCT g.id FROM StudyGroup g JOIN g.tagSet t " +
+           "WHERE t IN :tags AND g.isActive = true")
+    List<Long> findIdsByAnyTag(@Param("tags") Collection<String> tags);
+    
+    // Grupos activos con todos los tags (AND): cuenta coincidencias por grupo
+    @Query("SELECT g.id FROM StudyGroup g JOIN g.tagSet t " +
+           "WHERE t IN :tags AND g.isActive = true " +
+           "GROUP BY g.id HAVING COUNT(DISTINCT t) = :tagCount")
+    List<Long> findIdsByAllTags(@Param("tags") Collection<String> tags, @Param("tagCount") long tagCount);
+    
+    // Número de grupos por tag (carga inicial de la popularidad)
+    @Query("SELECT t, COUNT(g) FROM StudyGroup g JOIN g.tagSet t GROUP BY t")
+    List<Object[]> countGroupsPerTag();
     
     // Buscar grupos que inician después de una fecha
     List<StudyGroup> findByMeetingTimeAfter(LocalDateTime dateTime);
@@ -99,6 +153,28 @@ public interface StudyGroupRepository extends JpaRepository<StudyGroup, Long> {
                                  @Param("hasSpots") Boolean hasSpots,
                                  Pageable pageable);
     
+    // Listado paginado: una consulta por página (creator unido en la misma SELECT, sin members)
+    @Query(value = "SELECT new com.studybuddy.dto.GroupSummaryDTO(g.id, g.name, g.description, g.subject, " +
+           "c.username, g.currentMembers, g.maxMembers, g.isPublic, g.isChatEnabled, g.createdAt) " +
+           "FROM StudyGroup g LEFT JOIN g.creator c",
+           countQuery = "SELECT COUNT(g) FROM StudyGroup g")
+    Page<GroupSummaryDTO> findGroupSummaries(Pageable pageable);
+    
+    // Misma proyección para un conjunto de ids (búsqueda por tags)
+    @Query("SELECT new com.studybuddy.dto.GroupSummaryDTO(g.id, g.name, g.description, g.subject, " +
+           "c.username, g.currentMembers, g.maxMembers, g.isPublic, g.isChatEnabled, g.createdAt) " +
+           "FROM StudyGroup g LEFT JOIN g.creator c WHERE g.id IN :ids ORDER BY g.createdAt DESC, g.id DESC")
+    List<GroupSummaryDTO> findGroupSummariesByIds(@Param("ids") Collection<Long> ids);
+    
+    // Campos indexados por GroupSearchIndex (proyección, sin creator ni members EAGER)
+    @Query("SELECT g.id, g.name, g.description, g.subject, g.tags, g.location, g.schedule, " +
+           "g.difficultyLevel, g.isPublic, g.isActive, g.currentMembers, g.maxMembers FROM StudyGroup g")
+    List<Object[]> findSearchableGroups();
+    
+    // Materias distintas y cuántos grupos las usan (índice de autocompletado)
+    @Query("SELECT g.subject, COUNT(g) FROM StudyGroup g WHERE g.subject IS NOT NULL GROUP BY g.subject")
+    List<Object[]> countGroupsPerSubject();
+    
     // Contar grupos por creador
     Long countByCreator(User creator);
     
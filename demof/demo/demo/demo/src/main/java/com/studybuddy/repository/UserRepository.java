@@ -1,5 +1,7 @@
 package com.studybuddy.repository;
 
+import com.studybuddy.dto.AdminUserSummary;
+import com.studybuddy.model.Role;
 import com.studybuddy.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -9,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +21,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Buscar por username
     Optional<User> findByUsername(String username);
     
+    // Solo el id (evita cargar el usuario con sus roles EAGER)
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+    
     // Buscar por email
     Optional<User> findByEmail(String email);
     
@@ -75,7 +82,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     // Contar usuarios por rol
     @Query("SELECT COUNT(u) FROM User u JOIN u.roles r WHERE r.name = :roleName")
-    Long countByRoleName(@Param("roleName") String roleName);
+    Long countByRoleName(@Param("roleName") Role.ERole roleName);
+    
+    // Contar usuarios sin ningún rol asignado
+    @Query("SELECT COUNT(u) FROM User u WHERE u.roles IS EMPTY")
+    long countWithoutRoles();
+    
+    // Contar registros desde una fecha (usa idx_user_created_at)
+    long countByCreatedAtGreaterThanEqual(LocalDateTime since);
     
     // CORREGIDO: Count por Enabled
     Long countByEnabledTrue();
@@ -98,7 +112,17 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> searchByNameOrUsername(@Param("query") String query);
     
     // Búsqueda completa con paginación - CORREGIDO u.isActive -> u.enabled
-    @Query("SELECT u FROM User u WHERE " +
+    // Devuelve solo las columnas del listado (sin roles EAGER ni entidades completas)
+    @Query(value = "SELECT u.id AS id, u.username AS username, u.email AS email, " +
+           "u.firstName AS firstName, u.lastName AS lastName, u.enabled AS enabled, u.createdAt AS createdAt " +
+           "FROM User u WHERE " + ADMIN_SEARCH_FILTER,
+           countQuery = "SELECT COUNT(u) FROM User u WHERE " + ADMIN_SEARCH_FILTER)
+    Page<AdminUserSummary> searchUsersWithPagination(@Param("query") String query, 
+                                                     @Param("enabled") Boolean enabled, 
+                                                     @Param("role") Role.ERole role,
+                                                     Pageable pageable);
+    
+    String ADMIN_SEARCH_FILTER =
            "(:query IS NULL OR " +
            "LOWER(u.firstName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
            "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
@@ -106,10 +130,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
            "LOWER(u.email) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
            "LOWER(u.career) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
            "LOWER(u.university) LIKE LOWER(CONCAT('%', :query, '%'))) AND " +
-           "(:enabled IS NULL OR u.enabled = :enabled)")
-    Page<User> searchUsersWithPagination(@Param("query") String query, 
-                                        @Param("enabled") Boolean enabled, 
-                                        Pageable pageable);
+           "(:enabled IS NULL OR u.enabled = :enabled) AND " +
+           "(:role IS NULL OR u.id IN (SELECT ur.id FROM User ur JOIN ur.roles r WHERE r.name = :role))";
+    
+    // Roles de los usuarios de una página (una sola consulta para todo el listado)
+    @Query("SELECT u.id, r.name FROM User u JOIN u.roles r WHERE u.id IN :ids")
+    List<Object[]> findRoleNamesByUserIds(@Param("ids") Collection<Long> ids);
     
     // CORREGIDO: u.isActive -> u.enabled
     @Query("SELECT DISTINCT u FROM User u " +
@@ -120,6 +146,17 @@ public interface UserRepository extends JpaRepository<User, Long> {
            "ui.id IN (SELECT ui2.id FROM User u2 JOIN u2.interests ui2 WHERE u2.id = :currentUserId))")
     List<User> findCompatibleUsers(@Param("currentUserId") Long currentUserId);
     
+    // Proyecciones para el índice de matching (evitan cargar entidades User y sus roles)
+    @Query("SELECT u.id, u.career, u.university, u.semester FROM User u WHERE u.enabled = true")
+    List<Object[]> findEnabledMatchingProfiles();
+    
+    @Query("SELECT u.id, i.id FROM User u JOIN u.interests i WHERE u.enabled = true")
+    List<Object[]> findEnabledUserInterestIds();
+    
+    // Proyección para el índice de autocompletado
+    @Query("SELECT u.id, u.username, u.firstName, u.lastName FROM User u WHERE u.enabled = true")
+    List<Object[]> findEnabledUserNames();
+    
     // Encontrar usuarios por género
     List<User> findByGender(String gender);
     
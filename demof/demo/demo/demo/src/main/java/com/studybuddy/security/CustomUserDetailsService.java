@@ -11,9 +11,11 @@ import org.springframework.transaction.annotation.Transactional;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
     }
 
     @Override
@@ -28,6 +30,12 @@ public class CustomUserDetailsService implements UserDetailsService {
                 ));
     }
 
+    // Versión cacheada para el filtro JWT: evita ir a MySQL en cada petición autenticada.
+    // El login por formulario sigue usando loadUserByUsername (siempre contra la BD).
+    public UserDetails loadUserByUsernameCached(String username) throws UsernameNotFoundException {
+        return userDetailsCache.get(username, this::loadUserByUsername);
+    }
+
     // Método adicional para cargar usuario por ID
     @Transactional
     public UserDetails loadUserById(Long id) {
@@ -6,11 +6,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtTokenProvider {
@@ -23,6 +32,45 @@ public class JwtTokenProvider {
     @Value("${app.jwt.expiration:86400000}") // 24 horas por defecto
     private int jwtExpirationInMs;
 
+    // Modo sin estado: roles e id de usuario firmados en el token (sin ir a la BD en el filtro)
+    @Value("${app.jwt.stateless:false}")
+    private boolean stateless;
+
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
+
+    private final TokenRevocationList revocationList;
+
+    // Máximo de tokens ya verificados que se recuerdan (hasta su expiración)
+    @Value("${app.jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    // Clave y parser se construyen una sola vez al arrancar
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    // Digest SHA-256 del token -> claims ya verificados (LRU, orden de acceso)
+    private Map<String, VerifiedToken> verifiedTokens;
+
+    public JwtTokenProvider(TokenRevocationList revocationList) {
+        this.revocationList = revocationList;
+    }
+
+    @PostConstruct
+    public void init() {
+        this.signingKey = buildSigningKey();
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        int maxEntries = verifiedCacheSize;
+        this.verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
     // Generar token (nueva API JJWT)
     public String generateToken(Authentication authentication) {
         String username = authentication.getName();
@@ -30,19 +78,79 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .subject(username)  // Nuevo método: .subject() en lugar de .setSubject()
                 .issuedAt(now)      // Nuevo método: .issuedAt() en lugar de .setIssuedAt()
-                .expiration(expiryDate) // Nuevo método: .expiration() en lugar de .setExpiration()
-                .signWith(getSigningKey())
-                .compact();
+                .expiration(expiryDate); // Nuevo método: .expiration() en lugar de .setExpiration()
+
+        if (stateless && authentication.getPrincipal() instanceof CustomUserDetails details) {
+            List<String> roles = details.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .collect(Collectors.toList());
+            builder.claim(CLAIM_USER_ID, details.getId())
+                   .claim(CLAIM_ROLES, roles);
+        }
+
+        return builder.signWith(signingKey).compact();
+    }
+
+    public boolean isStateless() {
+        return stateless;
+    }
+
+    // Roles firmados en el token, o null si es un token "clásico" (solo subject)
+    @SuppressWarnings("unchecked")
+    public List<String> getRoles(Claims claims) {
+        Object roles = claims.get(CLAIM_ROLES);
+        return roles instanceof List ? (List<String>) roles : null;
+    }
+
+    /**
+     * Verifica el token una sola vez y devuelve sus claims, o null si no es válido.
+     * Los tokens ya verificados se recuerdan por su digest hasta que expiran, así que
+     * en peticiones repetidas con el mismo token no se vuelve a comprobar la firma.
+     */
+    public Claims validateAndGetClaims(String token) {
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+        synchronized (verifiedTokens) {
+            VerifiedToken cached = verifiedTokens.get(digest);
+            if (cached != null) {
+                if (cached.expiresAt > now) {
+                    return isRevoked(cached.claims) ? null : cached.claims;
+                }
+                verifiedTokens.remove(digest);
+                return null;
+            }
+        }
+
+        Claims claims;
+        try {
+            claims = jwtParser.parseSignedClaims(token).getPayload();
+        } catch (JwtException | IllegalArgumentException ex) {
+            logger.error("Error validando token JWT: {}", ex.getMessage());
+            return null;
+        }
+
+        long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        synchronized (verifiedTokens) {
+            verifiedTokens.put(digest, new VerifiedToken(claims, expiresAt));
+        }
+        return isRevoked(claims) ? null : claims;
+    }
+
+    // Solo aplica a tokens con uid: los clásicos se validan contra la BD en el filtro
+    private boolean isRevoked(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        if (userId == null || claims.getIssuedAt() == null) {
+            return false;
+        }
+        return revocationList.isRevoked(userId.longValue(), claims.getIssuedAt().getTime() / 1000);
     }
 
     // Obtener username del token (nueva API JJWT)
     public String getUsernameFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())  // Nuevo método: .verifyWith() en lugar de .setSigningKey()
-                .build()
+        return jwtParser
                 .parseSignedClaims(token)     // Nuevo método: .parseSignedClaims() en lugar de .parseClaimsJws()
                 .getPayload()
                 .getSubject();                // El subject sigue siendo igual
@@ -50,19 +158,10 @@ public class JwtTokenProvider {
 
     // Validar token (nueva API JJWT)
     public boolean validateToken(String token) {
-        try {
-            Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token);
-            return true;
-        } catch (JwtException ex) {
-            logger.error("Error validando token JWT: {}", ex.getMessage());
-            return false;
-        }
+        return validateAndGetClaims(token) != null;
     }
 
-    private SecretKey getSigningKey() {
+    private SecretKey buildSigningKey() {
         // Asegurarse de que la clave tenga al menos 256 bits (32 caracteres)
         byte[] keyBytes;
         if (jwtSecret.length() < 32) {
@@ -75,11 +174,19 @@ public class JwtTokenProvider {
         return Keys.hmacShaKeyFor(keyBytes);
     }
 
+    // No se guarda el token en claro como clave de la caché
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
     // Métodos adicionales útiles (actualizados)
     public Date getExpirationDateFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return jwtParser
                 .parseSignedClaims(token)
                 .getPayload()
                 .getExpiration();
@@ -89,4 +196,14 @@ public class JwtTokenProvider {
         Date expiration = getExpirationDateFromToken(token);
         return expiration.before(new Date());
     }
-}
\ No newline at end of file
+
+    private static final class VerifiedToken {
+        private final Claims claims;
+        private final long expiresAt;
+
+        VerifiedToken(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.studybuddy.security;
+
+import com.studybuddy.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lista de revocación en memoria para los tokens JWT sin estado (app.jwt.stateless).
+ * Por cada usuario se guarda el instante a partir del cual sus tokens anteriores dejan
+ * de valer (cambio de rol, desactivación, cambio de contraseña o borrado). Las entradas
+ * se descartan cuando ya no puede quedar ningún token vivo emitido antes de esa marca.
+ */
+@Component
+public class TokenRevocationList {
+
+    private final long jwtExpirationInMs;
+
+    // userId -> segundos epoch; se rechazan tokens con iat <= este valor
+    private final Map<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    public TokenRevocationList(@Value("${app.jwt.expiration:86400000}") long jwtExpirationInMs) {
+        this.jwtExpirationInMs = jwtExpirationInMs;
+    }
+
+    public void revokeUser(Long userId) {
+        if (userId != null) {
+            revokedBefore.put(userId, System.currentTimeMillis() / 1000);
+        }
+    }
+
+    // La marca se toma tras el commit: un token emitido mientras la transacción seguía
+    // abierta (con el rol o el estado anteriores) queda también por debajo del corte
+    public void revokeUserAfterCommit(Long userId) {
+        if (userId != null) {
+            TransactionHooks.afterCommit(() -> revokeUser(userId));
+        }
+    }
+
+    // iat del JWT tiene resolución de segundos; ante la duda se rechaza
+    public boolean isRevoked(Long userId, long issuedAtSeconds) {
+        Long cutoff = revokedBefore.get(userId);
+        return cutoff != null && issuedAtSeconds <= cutoff;
+    }
+
+    public int size() {
+        return revokedBefore.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation-cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        long oldestLiveIssue = (System.currentTimeMillis() - jwtExpirationInMs) / 1000;
+        revokedBefore.values().removeIf(cutoff -> cutoff < oldestLiveIssue);
+    }
+}
@@ -0,0 +1,118 @@
+package com.studybuddy.security;
+
+import com.studybuddy.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Caché acotada (LRU + TTL) de UserDetails por nombre de usuario o email, usada por
+ * JwtAuthenticationFilter para no consultar MySQL en cada petición con token.
+ * UserServiceImpl la invalida cuando cambian el rol, el estado o los datos del usuario.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final long ttlMillis;
+
+    // LinkedHashMap en orden de acceso: el primero es el menos usado
+    private final Map<String, Entry> entries;
+
+    // Marcas para no cachear cargas que empezaron antes de una invalidación:
+    // cada invalidación avanza el contador y guarda su valor para el usuario (o para todos en clear)
+    private long sequence = 0;
+    private long clearedAt = 0;
+    private final Map<Long, Long> evictedAt = new HashMap<>();
+    // Cargas en curso; sin ninguna, las marcas ya no hacen falta
+    private int loadsInFlight = 0;
+
+    public UserDetailsCache(@Value("${app.security.user-cache.ttl-seconds:300}") long ttlSeconds,
+                            @Value("${app.security.user-cache.max-entries:10000}") int maxEntries) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        long now = System.currentTimeMillis();
+        long startedAt;
+        synchronized (this) {
+            Entry entry = entries.get(username);
+            if (entry != null && entry.expiresAt > now) {
+                return entry.details;
+            }
+            startedAt = sequence;
+            loadsInFlight++;
+        }
+        // La carga se hace fuera del lock; si falla (usuario inexistente) no se cachea
+        UserDetails details = null;
+        try {
+            details = loader.apply(username);
+        } finally {
+            synchronized (this) {
+                // Si el usuario se invalidó mientras se cargaba, lo leído puede ser anterior al commit
+                if (details != null && !invalidatedSince(details, startedAt)) {
+                    entries.put(username, new Entry(details, now + ttlMillis));
+                }
+                if (--loadsInFlight == 0) {
+                    evictedAt.clear();
+                }
+            }
+        }
+        return details;
+    }
+
+    /**
+     * Elimina las entradas del usuario (puede estar cacheado por username y por email)
+     * cuando la transacción en curso hace commit: antes, otra petición podría volver a
+     * cachear la fila antigua. Las cargas que empezaron antes tampoco se guardan.
+     */
+    public void evictUserAfterCommit(Long userId) {
+        if (userId != null) {
+            TransactionHooks.afterCommit(() -> removeUser(userId));
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        clearedAt = ++sequence;
+    }
+
+    synchronized void removeUser(Long userId) {
+        entries.values().removeIf(entry -> entry.details instanceof CustomUserDetails
+                && userId.equals(((CustomUserDetails) entry.details).getId()));
+        if (loadsInFlight > 0) {
+            evictedAt.put(userId, ++sequence);
+        }
+    }
+
+    private boolean invalidatedSince(UserDetails details, long startedAt) {
+        if (clearedAt > startedAt) {
+            return true;
+        }
+        if (details instanceof CustomUserDetails) {
+            Long stamp = evictedAt.get(((CustomUserDetails) details).getId());
+            return stamp != null && stamp > startedAt;
+        }
+        return false;
+    }
+
+    private static final class Entry {
+        private final UserDetails details;
+        private final long expiresAt;
+
+        Entry(UserDetails details, long expiresAt) {
+            this.details = details;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.studybuddy.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exportación de tablas completas para reportes (CSV o NDJSON).
+ * Las filas se leen con un ResultSet de solo avance en modo streaming de MySQL
+ * (fetchSize = Integer.MIN_VALUE) y se escriben directamente en la respuesta,
+ * así que la memoria usada no depende del tamaño de la tabla.
+ */
+@Service
+public class AdminExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminExportService.class);
+
+    private static final int PROGRESS_EVERY = 10_000;
+
+    public enum Format { CSV, NDJSON }
+
+    // Datasets exportables y sus columnas (nunca contraseñas ni códigos OTP)
+    private static final Map<String, String> QUERIES = Map.of(
+            "users",
+            "SELECT id, username, email, first_name, last_name, career, university, semester, " +
+            "enabled, created_at, last_login FROM users ORDER BY id",
+            "groups",
+            "SELECT id, name, subject, course_code, creator_id, max_members, current_members, " +
+            "is_public, is_active, is_chat_enabled, created_at FROM study_groups ORDER BY id",
+            "messages",
+            "SELECT id, group_id, sender_id, sent_at, message_type, is_deleted, content FROM messages ORDER BY id"
+    );
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public AdminExportService(DataSource dataSource, ObjectMapper objectMapper) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        // MySQL Connector/J solo hace streaming fila a fila con este valor
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean supports(String dataset) {
+        return QUERIES.containsKey(dataset);
+    }
+
+    public void export(String dataset, Format format, OutputStream out) throws IOException {
+        String sql = QUERIES.get(dataset);
+        if (sql == null) {
+            throw new IllegalArgumentException("Dataset no soportado: " + dataset);
+        }
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long start = System.currentTimeMillis();
+        long[] rows = {0};
+        logger.info("Iniciando exportación de '{}' en formato {}", dataset, format);
+
+        try {
+            // Extractor en lugar de callback por fila: la cabecera sale de los metadatos aunque no haya filas
+            streamingJdbcTemplate.query(sql, (ResultSetExtractor<Void>) rs -> {
+                try {
+                    if (format == Format.CSV) {
+                        writeCsvHeader(rs.getMetaData(), writer);
+                    }
+                    while (rs.next()) {
+                        if (format == Format.CSV) {
+                            writeCsvRow(rs, writer);
+                        } else {
+                            writeJsonRow(rs, writer);
+                        }
+                        if (++rows[0] % PROGRESS_EVERY == 0) {
+                            logger.info("Exportación de '{}': {} filas", dataset, rows[0]);
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            // Normalmente el cliente cortó la descarga
+            logger.warn("Exportación de '{}' interrumpida tras {} filas: {}", dataset, rows[0], e.getMessage());
+            throw e.getCause();
+        }
+
+        writer.flush();
+        logger.info("Exportación de '{}' terminada: {} filas en {} ms",
+                dataset, rows[0], System.currentTimeMillis() - start);
+    }
+
+    // ================= FORMATOS ===================
+
+    private void writeCsvHeader(ResultSetMetaData meta, Writer writer) throws SQLException, IOException {
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            if (i > 1) writer.write(',');
+            writer.write(meta.getColumnLabel(i));
+        }
+        writer.write('\n');
+    }
+
+    private void writeCsvRow(ResultSet rs, Writer writer) throws SQLException, IOException {
+        int columns = rs.getMetaData().getColumnCount();
+        for (int i = 1; i <= columns; i++) {
+            if (i > 1) writer.write(',');
+            Object value = columnValue(rs, i);
+            if (value instanceof String text) {
+                writer.write(escapeCsv(guardFormula(text)));
+            } else if (value != null) {
+                writer.write(escapeCsv(value.toString()));
+            }
+        }
+        writer.write('\n');
+    }
+
+    private void writeJsonRow(ResultSet rs, Writer writer) throws SQLException, IOException {
+        ResultSetMetaData meta = rs.getMetaData();
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            Object value = columnValue(rs, i);
+            // Números y booleanos con su tipo JSON; el resto (textos, fechas) como cadena
+            boolean nativeJson = value == null || value instanceof Number || value instanceof Boolean;
+            row.put(meta.getColumnLabel(i), nativeJson ? value : value.toString());
+        }
+        writer.write(objectMapper.writeValueAsString(row));
+        writer.write('\n');
+    }
+
+    private static Object columnValue(ResultSet rs, int column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return value;
+    }
+
+    // Texto de usuario que Excel/LibreOffice interpretarían como fórmula (CSV injection)
+    private static String guardFormula(String value) {
+        if (!value.isEmpty()) {
+            char first = value.charAt(0);
+            if (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r') {
+                return "'" + value;
+            }
+        }
+        return value;
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
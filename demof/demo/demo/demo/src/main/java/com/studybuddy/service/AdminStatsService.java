@@ -0,0 +1,48 @@
+package com.studybuddy.service;
+
+import com.studybuddy.dto.AdminStatsDTO;
+import com.studybuddy.model.Role;
+import com.studybuddy.repository.RoleRepository;
+import com.studybuddy.repository.UserRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Números del panel de administración calculados con consultas de agregación
+ * (COUNT / GROUP BY sobre columnas indexadas); no carga ninguna entidad User.
+ */
+@Service
+@Transactional(readOnly = true)
+public class AdminStatsService {
+
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+
+    public AdminStatsService(UserRepository userRepository, RoleRepository roleRepository) {
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+    }
+
+    public AdminStatsDTO getDashboardStats() {
+        long totalUsers = userRepository.count();
+        long activeUsers = userRepository.countByEnabledTrue();
+        long todayRegistrations = userRepository.countByCreatedAtGreaterThanEqual(LocalDate.now().atStartOfDay());
+        return new AdminStatsDTO(totalUsers, activeUsers, todayRegistrations, countUsersByRole());
+    }
+
+    // Todos los roles aparecen, aunque no tengan usuarios
+    private Map<String, Long> countUsersByRole() {
+        Map<String, Long> byRole = new LinkedHashMap<>();
+        for (Role.ERole role : Role.ERole.values()) {
+            byRole.put(role.name().replace("ROLE_", ""), 0L);
+        }
+        for (Object[] row : roleRepository.countUsersPerRole()) {
+            byRole.put(((Role.ERole) row[0]).name().replace("ROLE_", ""), (Long) row[1]);
+        }
+        return byRole;
+    }
+}
@@ -0,0 +1,315 @@
+package com.studybuddy.service;
+
+import com.studybuddy.model.User;
+import com.studybuddy.repository.InterestRepository;
+import com.studybuddy.repository.StudyGroupRepository;
+import com.studybuddy.repository.UserRepository;
+import com.studybuddy.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de prefijos en memoria para el autocompletado del buscador.
+ * Las claves (texto normalizado + identificador de la entrada) viven en un mapa ordenado
+ * por tipo, así que las sugerencias de un prefijo son un recorrido de subMap que se corta
+ * en cuanto hay suficientes candidatos, sin LIKE '%x%' contra la base de datos.
+ * Cubre usernames y nombres de usuarios activos, nombres de intereses y materias de grupos.
+ * Las materias se ordenan por popularidad (número de grupos); usuarios e intereses no tienen
+ * esa señal y quedan detrás, en orden alfabético.
+ */
+@Component
+public class AutocompleteIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutocompleteIndex.class);
+
+    public static final int MAX_SUGGESTIONS = 20;
+
+    // Materias que se leen como máximo por prefijo para elegir las más populares
+    private static final int SUBJECT_CANDIDATES = 200;
+
+    // Separa el texto de la entrada en la clave: ordena antes que cualquier carácter visible
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    public enum Type { USER, INTEREST, SUBJECT }
+
+    private final UserRepository userRepository;
+    private final InterestRepository interestRepository;
+    private final StudyGroupRepository studyGroupRepository;
+
+    // Por tipo: "texto normalizado\0TIPO:id" -> sugerencia (un filtro por tipo no recorre los demás)
+    private final Map<Type, ConcurrentSkipListMap<String, Suggestion>> keys = new EnumMap<>(Type.class);
+    // "TIPO:id" -> claves de esa entrada (para poder quitarla al actualizar o borrar)
+    private final Map<String, List<String>> keysByEntry = new ConcurrentHashMap<>();
+    // Materia normalizada -> número de grupos que la usan (la sugerencia se quita al llegar a 0)
+    private final Map<String, Integer> subjectCounts = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded = false;
+
+    public AutocompleteIndex(UserRepository userRepository,
+                             InterestRepository interestRepository,
+                             StudyGroupRepository studyGroupRepository) {
+        this.userRepository = userRepository;
+        this.interestRepository = interestRepository;
+        this.studyGroupRepository = studyGroupRepository;
+        for (Type type : Type.values()) {
+            keys.put(type, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    // ================= CARGA ===================
+
+    public synchronized void rebuild() {
+        keys.values().forEach(Map::clear);
+        keysByEntry.clear();
+        subjectCounts.clear();
+        for (Object[] row : userRepository.findEnabledUserNames()) {
+            putUser((Long) row[0], (String) row[1], (String) row[2], (String) row[3]);
+        }
+        for (Object[] row : interestRepository.findActiveInterestNames()) {
+            putInterest((Long) row[0], (String) row[1]);
+        }
+        for (Object[] row : studyGroupRepository.countGroupsPerSubject()) {
+            addSubject((String) row[0], ((Number) row[1]).intValue());
+        }
+        loaded = true;
+        logger.info("Índice de autocompletado construido con {} entradas", keysByEntry.size());
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    rebuild();
+                }
+            }
+        }
+    }
+
+    // ================= ACTUALIZACIÓN ===================
+
+    // Los usuarios desactivados dejan de sugerirse
+    public void indexUserAfterCommit(User user) {
+        Long id = user.getId();
+        String username = user.getUsername();
+        String firstName = user.getFirstName();
+        String lastName = user.getLastName();
+        boolean enabled = user.isEnabled();
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                if (!loaded) {
+                    return; // Se indexará en la primera carga completa
+                }
+                removeEntry(Type.USER, entryId(Type.USER, id));
+                if (enabled) {
+                    putUser(id, username, firstName, lastName);
+                }
+            }
+        });
+    }
+
+    public void removeUserAfterCommit(Long userId) {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                if (loaded) {
+                    removeEntry(Type.USER, entryId(Type.USER, userId));
+                }
+            }
+        });
+    }
+
+    // previous/current pueden ser null (grupo creado o borrado)
+    public void recordSubjectChangeAfterCommit(String previous, String current) {
+        if (Objects.equals(previous, current)) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                if (!loaded) {
+                    return;
+                }
+                if (previous != null) {
+                    addSubject(previous, -1);
+                }
+                if (current != null) {
+                    addSubject(current, 1);
+                }
+            }
+        });
+    }
+
+    private void putUser(Long id, String username, String firstName, String lastName) {
+        String fullName = joinName(firstName, lastName);
+        String label = fullName.isEmpty() ? username : fullName + " (@" + username + ")";
+        Suggestion suggestion = new Suggestion(Type.USER, id, label, username);
+        // Se puede empezar a escribir por el username, el nombre o el apellido
+        Set<String> terms = new LinkedHashSet<>();
+        terms.add(normalize(username));
+        terms.add(normalize(fullName));
+        terms.add(normalize(lastName));
+        putEntry(suggestion, terms);
+    }
+
+    private void putInterest(Long id, String name) {
+        putEntry(new Suggestion(Type.INTEREST, id, name, name), Set.of(normalize(name)));
+    }
+
+    private void addSubject(String subject, int delta) {
+        String normalized = normalize(subject);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        int count = subjectCounts.getOrDefault(normalized, 0) + delta;
+        if (count <= 0) {
+            subjectCounts.remove(normalized);
+            removeEntry(Type.SUBJECT, entryId(Type.SUBJECT, normalized));
+        } else {
+            if (!subjectCounts.containsKey(normalized)) {
+                putEntry(new Suggestion(Type.SUBJECT, null, subject.trim(), subject.trim()), Set.of(normalized),
+                        entryId(Type.SUBJECT, normalized));
+            }
+            subjectCounts.put(normalized, count);
+        }
+    }
+
+    private void putEntry(Suggestion suggestion, Set<String> terms) {
+        putEntry(suggestion, terms, entryId(suggestion.getType(), suggestion.getId()));
+    }
+
+    private void putEntry(Suggestion suggestion, Set<String> terms, String entryId) {
+        List<String> entryKeys = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            if (!term.isEmpty()) {
+                String key = term + KEY_SEPARATOR + entryId;
+                keys.get(suggestion.getType()).put(key, suggestion);
+                entryKeys.add(key);
+            }
+        }
+        if (!entryKeys.isEmpty()) {
+            keysByEntry.put(entryId, entryKeys);
+        }
+    }
+
+    private void removeEntry(Type type, String entryId) {
+        List<String> entryKeys = keysByEntry.remove(entryId);
+        if (entryKeys != null) {
+            entryKeys.forEach(keys.get(type)::remove);
+        }
+    }
+
+    // ================= CONSULTA ===================
+
+    /**
+     * Las {@code limit} mejores sugerencias cuyo texto empieza por el prefijo: primero las
+     * materias con más grupos y después el resto en orden alfabético.
+     * type == null devuelve sugerencias de todos los tipos.
+     */
+    public List<Suggestion> suggest(String prefix, Type type, int limit) {
+        ensureLoaded();
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int max = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+
+        // Cada tipo aporta como mucho max candidatos (las materias, SUBJECT_CANDIDATES para poder
+        // elegir por popularidad), así que el recorrido está acotado aunque el prefijo sea corto
+        List<Candidate> candidates = new ArrayList<>();
+        for (Type t : type != null ? EnumSet.of(type) : EnumSet.allOf(Type.class)) {
+            collect(t, normalized, t == Type.SUBJECT ? Math.max(max, SUBJECT_CANDIDATES) : max, candidates);
+        }
+        candidates.sort(Candidate.BEST_FIRST);
+
+        List<Suggestion> results = new ArrayList<>(Math.min(max, candidates.size()));
+        for (int i = 0; i < candidates.size() && results.size() < max; i++) {
+            results.add(candidates.get(i).suggestion);
+        }
+        return results;
+    }
+
+    private void collect(Type type, String normalized, int max, List<Candidate> into) {
+        // Una misma entrada puede casar por varias claves (username y nombre): se devuelve una vez
+        Set<Suggestion> seen = new HashSet<>();
+        for (Map.Entry<String, Suggestion> entry
+                : keys.get(type).subMap(normalized, true, normalized + Character.MAX_VALUE, true).entrySet()) {
+            Suggestion suggestion = entry.getValue();
+            if (seen.add(suggestion)) {
+                // La clave de una materia es su texto normalizado, igual que en subjectCounts
+                String term = entry.getKey().substring(0, entry.getKey().indexOf(KEY_SEPARATOR));
+                int popularity = type == Type.SUBJECT ? subjectCounts.getOrDefault(term, 0) : 0;
+                into.add(new Candidate(entry.getKey(), suggestion, popularity));
+                if (seen.size() >= max) {
+                    break;
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return keysByEntry.size();
+    }
+
+    private static String entryId(Type type, Object id) {
+        return type.name() + ":" + id;
+    }
+
+    private static String joinName(String firstName, String lastName) {
+        return ((firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "")).trim();
+    }
+
+    // Minúsculas, sin tildes y con los espacios colapsados (el prefijo se compara con el texto completo)
+    static String normalize(String text) {
+        if (text == null || text.isBlank()) {
+            return "";
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD))
+                .replaceAll("");
+        return SPACES.matcher(normalized.trim()).replaceAll(" ");
+    }
+
+    // ================= MODELO ===================
+
+    private static final class Candidate {
+        static final Comparator<Candidate> BEST_FIRST =
+                Comparator.comparingInt((Candidate c) -> c.popularity).reversed()
+                          .thenComparing(c -> c.key);
+
+        private final String key;
+        private final Suggestion suggestion;
+        private final int popularity;
+
+        Candidate(String key, Suggestion suggestion, int popularity) {
+            this.key = key;
+            this.suggestion = suggestion;
+            this.popularity = popularity;
+        }
+    }
+
+    public static final class Suggestion {
+        private final Type type;
+        private final Long id;
+        private final String label;
+        private final String value;
+
+        public Suggestion(Type type, Long id, String label, String value) {
+            this.type = type;
+            this.id = id;
+            this.label = label;
+            this.value = value;
+        }
+
+        public Type getType() { return type; }
+        public Long getId() { return id; }
+        public String getLabel() { return label; }
+        public String getValue() { return value; }
+    }
+}
@@ -0,0 +1,211 @@
+package com.studybuddy.service;
+
+import com.studybuddy.dto.ChatMessageDTO;
+import com.studybuddy.repository.MessageRepository;
+import com.studybuddy.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Últimos mensajes de cada grupo de chat activo, en un buffer circular acotado.
+ * Se alimenta en postMessage, se carga la primera vez que se lee un grupo y los
+ * grupos menos usados se descartan (LRU) al superar el máximo configurado.
+ */
+@Component
+public class ChatMessageCache {
+
+    // Mismo orden que las consultas por cursor de MessageRepository (sentAt, id)
+    static final Comparator<ChatMessageDTO> ORDER = Comparator
+            .comparing(ChatMessageDTO::getSentAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ChatMessageDTO::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final MessageRepository messageRepository;
+    private final int capacity;
+
+    // LinkedHashMap en orden de acceso: el primero es el grupo menos usado
+    private final Map<Long, RingBuffer> buffers;
+
+    // Grupos que se están cargando -> mensajes añadidos mientras tanto (se reaplican al instalar el buffer)
+    private final Map<Long, List<ChatMessageDTO>> loading = new HashMap<>();
+
+    public ChatMessageCache(MessageRepository messageRepository,
+                            @Value("${app.chat.cache.messages-per-group:100}") int capacity,
+                            @Value("${app.chat.cache.max-groups:500}") int maxGroups) {
+        this.messageRepository = messageRepository;
+        this.capacity = capacity;
+        this.buffers = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, RingBuffer> eldest) {
+                return size() > maxGroups;
+            }
+        };
+    }
+
+    public synchronized boolean contains(Long groupId) {
+        return buffers.containsKey(groupId);
+    }
+
+    // Añade un mensaje recién guardado; si el grupo no está en memoria se cargará al leerlo
+    public synchronized void append(Long groupId, ChatMessageDTO message) {
+        RingBuffer buffer = buffers.get(groupId);
+        if (buffer != null) {
+            buffer.add(message);
+        } else {
+            List<ChatMessageDTO> pending = loading.get(groupId);
+            if (pending != null) {
+                pending.add(message);
+            }
+        }
+    }
+
+    public synchronized void evict(Long groupId) {
+        buffers.remove(groupId);
+        loading.remove(groupId);
+    }
+
+    // Tras el commit del borrado: antes, un lector podría volver a cargar los mensajes aún
+    // visibles, y un rollback dejaría la caché fría sin motivo
+    public void evictAfterCommit(Long groupId) {
+        TransactionHooks.afterCommit(() -> evict(groupId));
+    }
+
+    /**
+     * Misma página (y mismo orden) que las consultas por cursor de MessageRepository,
+     * con hasta size + 1 elementos. Devuelve null si el buffer no basta para responder
+     * y hay que ir a la base de datos.
+     */
+    public List<ChatMessageDTO> findPage(Long groupId, Long afterId, Long beforeId, int size) {
+        List<ChatMessageDTO> pending;
+        synchronized (this) {
+            RingBuffer buffer = buffers.get(groupId);
+            if (buffer != null) {
+                return page(buffer, afterId, beforeId, size);
+            }
+            pending = loading.computeIfAbsent(groupId, k -> new ArrayList<>());
+        }
+
+        // La consulta va fuera del lock: un grupo frío no bloquea las lecturas ni los envíos del resto
+        List<ChatMessageDTO> latest = messageRepository.findLatestPage(groupId, PageRequest.of(0, capacity + 1));
+
+        synchronized (this) {
+            RingBuffer buffer = buffers.get(groupId);
+            if (buffer == null) {
+                if (loading.get(groupId) != pending) {
+                    return null; // Se invalidó (evict) durante la carga: que responda la base de datos
+                }
+                loading.remove(groupId);
+                buffer = new RingBuffer(capacity, latest.size() <= capacity);
+                for (int i = Math.min(latest.size(), capacity) - 1; i >= 0; i--) {
+                    buffer.add(latest.get(i));
+                }
+                // Mensajes guardados mientras se cargaba (los que ya venían en la consulta se ignoran)
+                for (ChatMessageDTO message : pending) {
+                    buffer.add(message);
+                }
+                buffers.put(groupId, buffer);
+            }
+            return page(buffer, afterId, beforeId, size);
+        }
+    }
+
+    private static List<ChatMessageDTO> page(RingBuffer buffer, Long afterId, Long beforeId, int size) {
+        List<ChatMessageDTO> all = buffer.toList(); // del más antiguo al más reciente
+        int wanted = size + 1;
+
+        if (afterId != null) {
+            int idx = indexOf(all, afterId);
+            if (idx < 0) return null;
+            return new ArrayList<>(all.subList(idx + 1, Math.min(all.size(), idx + 1 + wanted)));
+        }
+
+        int end = all.size();
+        if (beforeId != null) {
+            end = indexOf(all, beforeId);
+            if (end < 0) return null;
+        }
+        if (end < wanted && !buffer.complete) return null;
+        List<ChatMessageDTO> page = new ArrayList<>(all.subList(Math.max(0, end - wanted), end));
+        Collections.reverse(page);
+        return page;
+    }
+
+    private static int indexOf(List<ChatMessageDTO> messages, Long id) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (id.equals(messages.get(i).getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Buffer circular de tamaño fijo ordenado por (sentAt, id); no es thread-safe (se usa bajo el lock de la caché).
+    // Con envíos concurrentes los mensajes pueden llegar desordenados: se insertan en su posición
+    // para que las páginas coincidan con las de findPageAfter/findPageBefore
+    private static final class RingBuffer {
+        private final ChatMessageDTO[] items;
+        // Ids presentes, para descartar duplicados sin recorrer el buffer
+        private final Set<Long> ids = new HashSet<>();
+        private int start = 0;
+        private int count = 0;
+        // true mientras el buffer contiene todo el historial del grupo
+        private boolean complete;
+
+        RingBuffer(int capacity, boolean complete) {
+            this.items = new ChatMessageDTO[capacity];
+            this.complete = complete;
+        }
+
+        void add(ChatMessageDTO message) {
+            if (message.getId() != null && !ids.add(message.getId())) {
+                return; // Ya cargado desde la base de datos
+            }
+            if (count < items.length) {
+                count++;
+            } else if (ORDER.compare(message, get(0)) < 0) {
+                // Más antiguo que todo el buffer lleno: queda fuera de la ventana
+                ids.remove(message.getId());
+                complete = false;
+                return;
+            } else {
+                // Se descarta el más antiguo; su hueco pasa a ser la última posición
+                ids.remove(items[start].getId());
+                start = (start + 1) % items.length;
+                complete = false;
+            }
+            // Desplaza hacia el final los más recientes (normalmente ninguno)
+            int i = count - 1;
+            while (i > 0 && ORDER.compare(get(i - 1), message) > 0) {
+                set(i, get(i - 1));
+                i--;
+            }
+            set(i, message);
+        }
+
+        private ChatMessageDTO get(int i) {
+            return items[(start + i) % items.length];
+        }
+
+        private void set(int i, ChatMessageDTO message) {
+            items[(start + i) % items.length] = message;
+        }
+
+        List<ChatMessageDTO> toList() {
+            List<ChatMessageDTO> list = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                list.add(get(i));
+            }
+            return list;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.studybuddy.service;
+
+import com.studybuddy.dto.ChatMessageDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Escritura diferida (write-behind) de mensajes de chat.
+ * Los mensajes se aceptan en una cola acotada y un único hilo los inserta en lotes JDBC
+ * cuando se junta batch-size o pasa flush-interval-ms. Si la cola está llena, el envío
+ * espera hasta enqueue-timeout-ms y después se rechaza (backpressure).
+ *
+ * Durabilidad:
+ *  - ACCEPTED: se responde al cliente en cuanto el mensaje entra en la cola
+ *    (si el proceso cae antes del flush, los mensajes en cola se pierden).
+ *  - FLUSHED: se responde cuando el lote que lo contiene ya está en la base de datos.
+ */
+@Component
+public class ChatMessageWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatMessageWriter.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO messages (content, sender_id, group_id, sent_at, is_read, message_type, is_edited, is_deleted) " +
+            "VALUES (?, ?, ?, ?, false, 'TEXT', false, false)";
+
+    // Intentos del lote completo antes de pasar a insertar fila a fila
+    private static final int BATCH_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MS = 200;
+
+    public enum Durability { ACCEPTED, FLUSHED }
+
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final Durability durability;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long enqueueTimeoutMs;
+    private final BlockingQueue<PendingMessage> queue;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running = false;
+    private Thread flusher;
+
+    public ChatMessageWriter(DataSource dataSource,
+                             @Value("${app.chat.write-behind.enabled:false}") boolean enabled,
+                             @Value("${app.chat.write-behind.durability:FLUSHED}") Durability durability,
+                             @Value("${app.chat.write-behind.queue-capacity:10000}") int queueCapacity,
+                             @Value("${app.chat.write-behind.batch-size:100}") int batchSize,
+                             @Value("${app.chat.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                             @Value("${app.chat.write-behind.enqueue-timeout-ms:500}") long enqueueTimeoutMs) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.durability = durability;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::runFlushLoop, "chat-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        logger.info("Write-behind de chat activo (durabilidad={}, lote={}, intervalo={}ms)",
+                durability, batchSize, flushIntervalMs);
+    }
+
+    // Al apagar se vacía la cola antes de cerrar el DataSource
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        flusher.interrupt();
+        flusher.join(10_000);
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public Durability getDurability() { return durability; }
+
+    public long getAcceptedCount() { return accepted.get(); }
+    public long getPersistedCount() { return persisted.get(); }
+    public long getDroppedCount() { return dropped.get(); }
+    public int getQueueSize() { return queue.size(); }
+
+    /**
+     * Encola un mensaje. El futuro se completa con el mensaje ya guardado (con id) tras el flush.
+     * Lanza RejectedExecutionException si la cola sigue llena pasado el timeout.
+     */
+    public CompletableFuture<ChatMessageDTO> enqueue(Long groupId, Long senderId, String senderName, String content)
+            throws InterruptedException {
+        PendingMessage pending = new PendingMessage(groupId, senderId, senderName, content, LocalDateTime.now());
+        if (!queue.offer(pending, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+            throw new RejectedExecutionException("Cola de mensajes llena");
+        }
+        accepted.incrementAndGet();
+        return pending.future;
+    }
+
+    // ================= FLUSH ===================
+
+    private void runFlushLoop() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = running ? queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS) : queue.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Se completa el lote hasta batch-size o hasta que vence el intervalo
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingMessage next = running && remaining > 0
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // stop(): se sale del bucle de espera y se vacía lo pendiente sin esperar
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Un lote que falla se reintenta; si sigue fallando se guardan los mensajes uno a uno
+    // y solo se descartan los que fallan también por separado (p. ej. un grupo ya borrado).
+    private void flush(List<PendingMessage> batch) {
+        for (int attempt = 1; attempt <= BATCH_ATTEMPTS; attempt++) {
+            try {
+                complete(batch, insertBatch(batch));
+                return;
+            } catch (Exception e) {
+                logger.warn("Error guardando lote de {} mensajes (intento {}/{}): {}",
+                        batch.size(), attempt, BATCH_ATTEMPTS, e.toString());
+            }
+            if (attempt < BATCH_ATTEMPTS) {
+                pause(RETRY_BACKOFF_MS * attempt);
+            }
+        }
+
+        logger.warn("Guardando uno a uno los {} mensajes del lote fallido", batch.size());
+        for (PendingMessage m : batch) {
+            try {
+                complete(List.of(m), insertBatch(List.of(m)));
+            } catch (Exception e) {
+                dropped.incrementAndGet();
+                logger.error("Mensaje descartado (grupo {}, usuario {}): {}", m.groupId, m.senderId, e.toString(), e);
+                m.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private List<Long> insertBatch(List<PendingMessage> batch) throws SQLException {
+        List<Long> ids = new ArrayList<>(batch.size());
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (PendingMessage m : batch) {
+                    ps.setString(1, m.content);
+                    ps.setLong(2, m.senderId);
+                    ps.setLong(3, m.groupId);
+                    ps.setTimestamp(4, Timestamp.valueOf(m.sentAt));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+        return ids;
+    }
+
+    private void complete(List<PendingMessage> batch, List<Long> ids) {
+        persisted.addAndGet(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            PendingMessage m = batch.get(i);
+            Long id = i < ids.size() ? ids.get(i) : null;
+            m.future.complete(new ChatMessageDTO(id, m.content, m.senderName, m.sentAt, "TEXT"));
+        }
+    }
+
+    // Espera entre reintentos; si se está parando (interrupt) se sigue sin esperar
+    private void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            running = false;
+        }
+    }
+
+    private static final class PendingMessage {
+        private final Long groupId;
+        private final Long senderId;
+        private final String senderName;
+        private final String content;
+        private final LocalDateTime sentAt;
+        private final CompletableFuture<ChatMessageDTO> future = new CompletableFuture<>();
+
+        PendingMessage(Long groupId, Long senderId, String senderName, String content, LocalDateTime sentAt) {
+            this.groupId = groupId;
+            this.senderId = senderId;
+            this.senderName = senderName;
+            this.content = content;
+            this.sentAt = sentAt;
+        }
+    }
+}
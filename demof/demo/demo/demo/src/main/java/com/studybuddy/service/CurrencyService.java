@@ -2,57 +2,94 @@ package com.studybuddy.service;
 
 import com.studybuddy.model.CurrencyRate;
 import com.studybuddy.repository.CurrencyRateRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
+import java.sql.Date;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Conversión de monedas sobre una tabla de tasas en memoria.
+ * La tabla es inmutable y se sustituye entera (AtomicReference) al refrescar desde la API,
+ * así que convertir es una búsqueda en un mapa sin bloqueos ni consultas. Los pares que no
+ * están cargados se derivan a través del USD (p. ej. PEN→EUR = USD→EUR / USD→PEN).
+ * La tabla currency_rates queda como histórico y como origen de la primera carga.
+ */
 @Service
 public class CurrencyService {
-    
-    @Autowired
-    private CurrencyRateRepository currencyRateRepository;
-    
-    @Autowired
-    private ExternalApiService externalApiService;
-    
+
+    private static final Logger logger = LoggerFactory.getLogger(CurrencyService.class);
+
+    private static final String PIVOT_CURRENCY = "USD";
+    private static final String SOURCE = "apilayer";
+    private static final int BATCH_SIZE = 500;
+    // Diferencias menores se consideran la misma tasa (ruido de redondeo de la API)
+    private static final double RATE_EPSILON = 1e-9;
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO currency_rates (base_currency, target_currency, exchange_rate, rate_date, last_updated, source, is_active) " +
+            "VALUES (?, ?, ?, ?, ?, ?, true) " +
+            "ON DUPLICATE KEY UPDATE exchange_rate = VALUES(exchange_rate), last_updated = VALUES(last_updated), " +
+            "source = VALUES(source), is_active = true";
+
+    private final CurrencyRateRepository currencyRateRepository;
+    private final ExternalApiService externalApiService;
+    private final JdbcTemplate jdbcTemplate;
+
+    // null hasta la primera carga desde BD
+    private final AtomicReference<RateSnapshot> snapshot = new AtomicReference<>();
+
+    public CurrencyService(CurrencyRateRepository currencyRateRepository,
+                           ExternalApiService externalApiService,
+                           JdbcTemplate jdbcTemplate) {
+        this.currencyRateRepository = currencyRateRepository;
+        this.externalApiService = externalApiService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
     // CONVERTIR MONEDA
-    public Double convertCurrency(String from, String to, Double amount) {
-        // 1. Intentar buscar tasa en base de datos local primero
-        Optional<CurrencyRate> rateOpt = currencyRateRepository.findLatestRate(from, to);
-        
-        if (rateOpt.isPresent()) {
-            CurrencyRate rate = rateOpt.get();
-            // Verificar si la tasa es reciente (hoy)
-            if (rate.isCurrentRate()) {
-                return rate.convert(amount);
-            }
-        }
-        
-        // 2. Si no existe o es antigua, usar API externa (o simulación)
-        try {
-            Map<String, Object> result = externalApiService
-                    .getExchangeRate(from, to, amount)
-                    .block(); // Llamada bloqueante segura aquí
-            
-            if (result != null && Boolean.TRUE.equals(result.get("success"))) {
-                // Intentar obtener el resultado numérico de forma segura
-                Object res = result.get("result");
-                if (res instanceof Number) {
-                    return ((Number) res).doubleValue();
-                }
-            }
-        } catch (Exception e) {
-            // Log del error silencioso
-            System.err.println("Error en API externa, usando simulación: " + e.getMessage());
+    // No bloquea: con la tabla en memoria responde al momento y, si hace falta la API,
+    // el hilo del servidor queda libre mientras dura la llamada
+    public Mono<Double> convertCurrency(String from, String to, Double amount) {
+        String base = normalizeCode(from);
+        String target = normalizeCode(to);
+
+        // 1. Tabla en memoria (par directo, inverso o cruzado vía USD)
+        Double rate = getSnapshot().rate(base, target);
+        if (rate != null) {
+            return Mono.just(amount * rate);
         }
-        
-        // 3. Fallback a simulación directa si todo falla
-        Map<String, Object> simulated = externalApiService.simulateExchangeRate(from, to, amount);
+
+        // 2. Par desconocido: usar API externa y 3. simulación si falla
+        return externalApiService.getExchangeRate(base, target, amount)
+                .flatMap(result -> {
+                    Object res = Boolean.TRUE.equals(result.get("success")) ? result.get("result") : null;
+                    return res instanceof Number ? Mono.just(((Number) res).doubleValue()) : Mono.<Double>empty();
+                })
+                .onErrorResume(e -> {
+                    logger.warn("Error en API externa, usando simulación: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> simulate(base, target, amount)));
+    }
+
+    private Double simulate(String base, String target, Double amount) {
+        Map<String, Object> simulated = externalApiService.simulateExchangeRate(base, target, amount);
         Object result = simulated.get("result");
         if (result instanceof Number) {
             return ((Number) result).doubleValue();
@@ -60,52 +97,233 @@ public class CurrencyService {
         // Si todo falla, retornar el monto original
         return amount;
     }
-    
+
     // GUARDAR TASA DE CAMBIO
     public CurrencyRate saveRate(CurrencyRate rate) {
         rate.setLastUpdated(LocalDateTime.now());
-        return currencyRateRepository.save(rate);
+        CurrencyRate saved = currencyRateRepository.save(rate);
+        Map<String, Double> changed = Map.of(pairKey(saved.getBaseCurrency(), saved.getTargetCurrency()), saved.getExchangeRate());
+        snapshot.updateAndGet(current -> (current != null ? current : loadFromDatabase()).with(changed, saved.getRateDate()));
+        return saved;
     }
-    
+
     // OBTENER TODAS LAS TASAS
     public List<CurrencyRate> getAllRates() {
         return currencyRateRepository.findAll();
     }
-    
+
+    // ================= REFRESCO ===================
+
+    @Scheduled(fixedDelayString = "${app.currency.refresh-interval-ms:21600000}",
+               initialDelayString = "${app.currency.refresh-initial-delay-ms:15000}")
+    public void scheduledRefresh() {
+        RateSnapshot current = getSnapshot();
+        // Tras un reinicio no se gasta cuota si la BD ya tiene las tasas de hoy
+        if (LocalDate.now().equals(current.getRateDate()) && current.getLoadedAt().isAfter(LocalDateTime.now().minusHours(1))) {
+            return;
+        }
+        updateRatesFromApi();
+    }
+
     // ACTUALIZAR TASAS DESDE API (Llamada Batch)
-    public void updateRatesFromApi() {
+    // Solo se escriben los pares cuya tasa cambió, con upserts JDBC por lotes
+    public RefreshResult updateRatesFromApi() {
         if (!externalApiService.isCurrencyApiConfigured()) {
-            return;
+            return RefreshResult.EMPTY;
         }
-        
+
         try {
             Map<String, Object> response = externalApiService
-                    .getLatestRates("USD")
+                    .getLatestRates(PIVOT_CURRENCY)
                     .block();
-            
+
             if (response != null && Boolean.TRUE.equals(response.get("success"))) {
                 @SuppressWarnings("unchecked")
                 Map<String, Number> rates = (Map<String, Number>) response.get("rates");
-                
+
                 if (rates != null) {
-                    for (Map.Entry<String, Number> entry : rates.entrySet()) {
-                        CurrencyRate rate = new CurrencyRate();
-                        rate.setBaseCurrency("USD");
-                        rate.setTargetCurrency(entry.getKey());
-                        rate.setExchangeRate(entry.getValue().doubleValue());
-                        rate.setRateDate(LocalDate.now());
-                        rate.setSource("apilayer");
-                        
-                        currencyRateRepository.save(rate);
-                    }
+                    return applyRates(rates, LocalDate.now());
                 }
             }
         } catch (Exception e) {
-            System.err.println("Error actualizando tasas masivas: " + e.getMessage());
+            logger.error("Error actualizando tasas masivas: {}", e.getMessage());
         }
+        return RefreshResult.EMPTY;
     }
-    
+
+    private RefreshResult applyRates(Map<String, Number> rates, LocalDate today) {
+        RateSnapshot current = getSnapshot();
+
+        // Diferencia contra la tabla en memoria
+        Map<String, Double> changed = new HashMap<>();
+        List<Object[]> rows = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int skipped = 0;
+        for (Map.Entry<String, Number> entry : rates.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            String target = normalizeCode(entry.getKey());
+            double value = entry.getValue().doubleValue();
+            Double previous = current.storedRate(PIVOT_CURRENCY, target);
+            if (previous != null && Math.abs(previous - value) <= RATE_EPSILON * Math.max(1.0, Math.abs(value))) {
+                skipped++;
+                continue;
+            }
+            changed.put(pairKey(PIVOT_CURRENCY, target), value);
+            rows.add(new Object[]{PIVOT_CURRENCY, target, value, Date.valueOf(today), now, SOURCE});
+        }
+
+        if (rows.isEmpty()) {
+            // Sin filas que escribir, pero la consulta fue correcta: la tabla vigente pasa a ser la de hoy
+            snapshot.updateAndGet(s -> (s != null ? s : current).with(Map.of(), today));
+            logger.info("Tasas de cambio sin cambios ({} pares)", skipped);
+            return new RefreshResult(0, 0, skipped);
+        }
+
+        // Los pares que ya tienen fila hoy se actualizan; el resto se insertan
+        Set<String> existingToday = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT target_currency FROM currency_rates WHERE base_currency = ? AND rate_date = ?",
+                String.class, PIVOT_CURRENCY, Date.valueOf(today)));
+        int updated = 0;
+        for (Object[] row : rows) {
+            if (existingToday.contains((String) row[1])) {
+                updated++;
+            }
+        }
+
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+
+        // Las conversiones en curso siguen con la tabla anterior hasta este punto.
+        // Se aplica sobre el snapshot vigente (no sobre current) para no pisar un saveRate concurrente
+        RateSnapshot next = snapshot.updateAndGet(s -> (s != null ? s : current).with(changed, today));
+
+        RefreshResult result = new RefreshResult(rows.size() - updated, updated, skipped);
+        logger.info("Tasas de cambio actualizadas: {} insertadas, {} actualizadas, {} sin cambios ({} pares en memoria)",
+                result.getInserted(), result.getUpdated(), result.getSkipped(), next.size());
+        return result;
+    }
+
     public List<String> getAvailableCurrencies() {
         return List.of("USD", "PEN", "EUR", "GBP", "JPY");
     }
-}
\ No newline at end of file
+
+    // ================= TABLA EN MEMORIA ===================
+
+    RateSnapshot getSnapshot() {
+        RateSnapshot current = snapshot.get();
+        if (current == null) {
+            snapshot.compareAndSet(null, loadFromDatabase());
+            current = snapshot.get();
+        }
+        return current;
+    }
+
+    // Última tasa de cada par guardada en BD (una sola consulta)
+    private RateSnapshot loadFromDatabase() {
+        Map<String, Double> rates = new HashMap<>();
+        LocalDate latest = null;
+        for (Object[] row : currencyRateRepository.findLatestRatePerPair()) {
+            rates.put(pairKey((String) row[0], (String) row[1]), (Double) row[2]);
+            LocalDate rateDate = (LocalDate) row[3];
+            if (latest == null || (rateDate != null && rateDate.isAfter(latest))) {
+                latest = rateDate;
+            }
+        }
+        logger.info("Tabla de tasas cargada desde BD con {} pares", rates.size());
+        return new RateSnapshot(rates, latest);
+    }
+
+    private static String normalizeCode(String code) {
+        return code == null ? "" : code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String pairKey(String base, String target) {
+        return normalizeCode(base) + "/" + normalizeCode(target);
+    }
+
+    // Tabla inmutable: "BASE/TARGET" -> tasa
+    static final class RateSnapshot {
+        private final Map<String, Double> rates;
+        private final LocalDate rateDate;
+        private final LocalDateTime loadedAt;
+
+        RateSnapshot(Map<String, Double> rates, LocalDate rateDate) {
+            this.rates = Collections.unmodifiableMap(rates);
+            this.rateDate = rateDate;
+            this.loadedAt = LocalDateTime.now();
+        }
+
+        // Copia con los pares indicados reemplazados
+        RateSnapshot with(Map<String, Double> changed, LocalDate changedDate) {
+            Map<String, Double> merged = new HashMap<>(rates);
+            merged.putAll(changed);
+            LocalDate date = rateDate == null || (changedDate != null && changedDate.isAfter(rateDate)) ? changedDate : rateDate;
+            return new RateSnapshot(merged, date);
+        }
+
+        // Solo la tasa guardada para el par exacto (sin inversos ni cruces)
+        Double storedRate(String base, String target) {
+            return rates.get(base + "/" + target);
+        }
+
+        Double rate(String base, String target) {
+            if (base.equals(target)) {
+                return 1.0;
+            }
+            Double direct = rates.get(base + "/" + target);
+            if (direct != null) {
+                return direct;
+            }
+            Double inverse = rates.get(target + "/" + base);
+            if (inverse != null && inverse != 0) {
+                return 1.0 / inverse;
+            }
+            // Cruce vía USD
+            Double pivotToBase = pivotRate(base);
+            Double pivotToTarget = pivotRate(target);
+            if (pivotToBase != null && pivotToTarget != null && pivotToBase != 0) {
+                return pivotToTarget / pivotToBase;
+            }
+            return null;
+        }
+
+        // Unidades de la moneda por 1 USD
+        private Double pivotRate(String currency) {
+            if (PIVOT_CURRENCY.equals(currency)) {
+                return 1.0;
+            }
+            Double rate = rates.get(PIVOT_CURRENCY + "/" + currency);
+            if (rate != null) {
+                return rate;
+            }
+            Double inverse = rates.get(currency + "/" + PIVOT_CURRENCY);
+            return inverse != null && inverse != 0 ? 1.0 / inverse : null;
+        }
+
+        int size() { return rates.size(); }
+        LocalDate getRateDate() { return rateDate; }
+        LocalDateTime getLoadedAt() { return loadedAt; }
+    }
+
+    // Resumen de un refresco desde la API
+    public static final class RefreshResult {
+        static final RefreshResult EMPTY = new RefreshResult(0, 0, 0);
+
+        private final int inserted;
+        private final int updated;
+        private final int skipped;
+
+        public RefreshResult(int inserted, int updated, int skipped) {
+            this.inserted = inserted;
+            this.updated = updated;
+            this.skipped = skipped;
+        }
+
+        public int getInserted() { return inserted; }
+        public int getUpdated() { return updated; }
+        public int getSkipped() { return skipped; }
+    }
+}
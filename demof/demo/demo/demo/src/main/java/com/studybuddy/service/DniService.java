@@ -13,9 +13,12 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Service
@@ -31,8 +34,27 @@ public class DniService {
     @Value("${app.external-api.dni.apikey}")
     private String apiToken;
     
+    // Tiempo que se reutiliza una respuesta correcta para consultas idénticas
+    @Value("${app.external-api.dni.single-flight-ttl-ms:60000}")
+    private long singleFlightTtlMs;
+    
+    // Espera máxima de la API de RENIEC antes de responder con error
+    @Value("${app.external-api.dni.timeout-ms:5000}")
+    private long timeoutMs;
+    
+    // Un DNI verificado contra RENIEC se da por bueno durante este tiempo (memoria y BD)
+    @Value("${app.external-api.dni.freshness-days:30}")
+    private long freshnessDays;
+    
+    @Value("${app.external-api.dni.cache.max-entries:10000}")
+    private int cacheMaxEntries;
+    
     private final DniInfoRepository dniInfoRepository;
     private WebClient webClient;
+    // LRU de DNIs consultados: DNI -> resultado y momento de verificación
+    private Map<String, CachedDni> recentLookups;
+    // Consultas simultáneas del mismo DNI comparten una sola llamada a la API
+    private SingleFlight<DniDTO> dniFlights;
     
     public DniService(DniInfoRepository dniInfoRepository) {
         this.dniInfoRepository = dniInfoRepository;
@@ -49,6 +71,13 @@ public class DniService {
                 // Usamos Bearer Token estándar
                 .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + finalToken)
                 .build();
+        this.dniFlights = new SingleFlight<>(Duration.ofMillis(singleFlightTtlMs), 10_000, DniDTO::isSuccess);
+        this.recentLookups = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedDni> eldest) {
+                return size() > cacheMaxEntries;
+            }
+        };
                 
         logger.info("DniService iniciado con URL: {}", apiUrl);
     }
@@ -58,6 +87,33 @@ public class DniService {
             return Mono.just(new DniDTO(dni, "DNI inválido"));
         }
         
+        // 1. Memoria
+        DniDTO cached = getRecent(dni);
+        if (cached != null) {
+            countConsultationAsync(dni);
+            return Mono.just(cached);
+        }
+        
+        // 2. BD (dni_info) y 3. API externa; las consultas simultáneas del mismo DNI se agrupan
+        return dniFlights.execute(dni, () -> Mono.fromCallable(() -> findFreshInDatabase(dni))
+                .subscribeOn(Schedulers.boundedElastic())
+                .switchIfEmpty(Mono.defer(() -> fetchFromApi(dni))));
+    }
+    
+    // Devuelve null si no hay fila o si su última verificación está fuera de la ventana
+    private DniDTO findFreshInDatabase(String dni) {
+        DniInfo info = dniInfoRepository.findByDniNumber(dni).orElse(null);
+        if (info == null || !Boolean.TRUE.equals(info.getIsValid()) || info.getFirstName() == null
+                || !isFresh(info.getLastVerified())) {
+            return null;
+        }
+        dniInfoRepository.incrementConsultationCount(info.getId(), LocalDateTime.now());
+        DniDTO dto = new DniDTO(dni, info.getFirstName(), info.getLastName(), info.getMotherLastName());
+        remember(dni, dto, info.getLastVerified());
+        return dto;
+    }
+    
+    private Mono<DniDTO> fetchFromApi(String dni) {
         return webClient.get()
                 .uri("/dni/{dni}", dni) // Se añade a la URL base definida en properties
                 .retrieve()
@@ -65,9 +121,17 @@ public class DniService {
                     Mono.error(new ApiException("Error API: " + response.statusCode()))
                 )
                 .bodyToMono(Map.class)
+                .timeout(Duration.ofMillis(timeoutMs))
                 .map(this::mapToDniDTO)
-                .doOnSuccess(dto -> {
-                    if(dto.isSuccess()) saveToDatabase(dni, dto);
+                .flatMap(dto -> {
+                    if (!dto.isSuccess()) {
+                        return Mono.just(dto);
+                    }
+                    remember(dni, dto, LocalDateTime.now());
+                    // El guardado usa JPA (bloqueante): fuera del hilo de WebClient
+                    return Mono.fromRunnable(() -> saveToDatabase(dni, dto))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .thenReturn(dto);
                 })
                 .onErrorResume(e -> {
                     logger.error("Error consultando API externa: {}", e.getMessage());
@@ -95,17 +159,73 @@ public class DniService {
         );
     }
 
+    // El contador de consultas también cuenta los aciertos en memoria, sin hacer esperar la respuesta
+    private void countConsultationAsync(String dni) {
+        Mono.fromRunnable(() -> dniInfoRepository.incrementConsultationCountByDni(dni, LocalDateTime.now()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(null, e -> logger.warn("No se pudo actualizar el contador del DNI: {}", e.getMessage()));
+    }
+    
+    // Upsert por dni_number: una fila por DNI, refrescada en cada verificación
     private void saveToDatabase(String dni, DniDTO dto) {
-      
         try {
-            DniInfo info = new DniInfo();
-            info.setDniNumber(dni);
-            info.setFullName(dto.getNombres() + " " + dto.getApellidoPaterno());
-            info.setConsultedAt(LocalDateTime.now());
+            LocalDateTime now = LocalDateTime.now();
+            DniInfo info = dniInfoRepository.findByDniNumber(dni).orElse(null);
+            if (info == null) {
+                info = new DniInfo();
+                info.setDniNumber(dni);
+            } else {
+                info.incrementConsultationCount();
+            }
+            info.setFirstName(dto.getNombres());
+            info.setLastName(dto.getApellidoPaterno());
+            info.setMotherLastName(dto.getApellidoMaterno());
+            info.setFullName(dto.getNombres() + " " + dto.getApellidoPaterno()
+                    + (dto.getApellidoMaterno() != null ? " " + dto.getApellidoMaterno() : ""));
+            info.setConsultedAt(now);
+            info.setLastVerified(now);
             info.setIsValid(true);
+            info.setErrorMessage(null);
             dniInfoRepository.save(info);
         } catch (Exception e) {
-           
+            // Otra petición insertó el mismo DNI a la vez: la fila ya existe y está al día
+            logger.warn("No se pudo guardar el DNI consultado: {}", e.getMessage());
+        }
+    }
+    
+    // ================= CACHÉ EN MEMORIA ===================
+    
+    private DniDTO getRecent(String dni) {
+        synchronized (recentLookups) {
+            CachedDni cached = recentLookups.get(dni);
+            if (cached == null) {
+                return null;
+            }
+            if (!isFresh(cached.verifiedAt)) {
+                recentLookups.remove(dni);
+                return null;
+            }
+            return cached.dto;
+        }
+    }
+    
+    private void remember(String dni, DniDTO dto, LocalDateTime verifiedAt) {
+        synchronized (recentLookups) {
+            recentLookups.put(dni, new CachedDni(dto, verifiedAt));
+        }
+    }
+    
+    private boolean isFresh(LocalDateTime verifiedAt) {
+        return verifiedAt != null && verifiedAt.isAfter(LocalDateTime.now().minusDays(freshnessDays));
+    }
+    
+    private static final class CachedDni {
+        private final DniDTO dto;
+        private final LocalDateTime verifiedAt;
+        
+        CachedDni(DniDTO dto, LocalDateTime verifiedAt) {
+            this.dto = dto;
+            this.verifiedAt = verifiedAt;
         }
     }
     
@@ -8,6 +8,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.Map;
 
 @Slf4j
@@ -16,6 +18,8 @@ public class ExternalApiService {
 
     private final WebClient currencyWebClient;
     private final WebClient dniWebClient;
+    // Conversiones simultáneas del mismo par comparten una sola llamada a apilayer
+    private final SingleFlight<Map<String, Object>> exchangeRateFlights;
 
     @Value("${app.external-api.currency.apikey:}")
     private String currencyApiKey;
@@ -23,11 +27,21 @@ public class ExternalApiService {
     @Value("${app.external-api.dni.apikey:}")
     private String dniApiKey;
 
+    // Tiempo máximo de espera por upstream: un proveedor lento no retiene la petición indefinidamente
+    @Value("${app.external-api.currency.timeout-ms:5000}")
+    private long currencyTimeoutMs;
+
+    @Value("${app.external-api.dni.timeout-ms:5000}")
+    private long dniTimeoutMs;
+
     // Agregamos @Qualifier para asegurar que Spring sepa cuál WebClient usar
     public ExternalApiService(@Qualifier("currencyWebClient") WebClient currencyWebClient, 
-                              @Qualifier("dniWebClient") WebClient dniWebClient) {
+                              @Qualifier("dniWebClient") WebClient dniWebClient,
+                              @Value("${app.external-api.currency.single-flight-ttl-ms:60000}") long exchangeRateTtlMs) {
         this.currencyWebClient = currencyWebClient;
         this.dniWebClient = dniWebClient;
+        this.exchangeRateFlights = new SingleFlight<>(Duration.ofMillis(exchangeRateTtlMs), 10_000,
+                response -> Boolean.TRUE.equals(response.get("success")));
     }
 
     // CONSULTAR TASA DE CAMBIO
@@ -36,20 +50,36 @@ public class ExternalApiService {
             return Mono.just(Map.of("error", "Parámetros inválidos", "success", false));
         }
 
-        String url = "/convert?from=" + from + "&to=" + to + "&amount=" + amount;
-        
         if (!isCurrencyApiConfigured()) {
             log.warn("API de moneda no configurada, usando simulación");
             return Mono.just(simulateExchangeRate(from, to, amount));
         }
 
-        return currencyWebClient.get()
+        // Se pide la tasa del par (amount=1) y se agrupa por par: conversiones de importes
+        // distintos comparten la llamada y el resultado se multiplica aquí
+        String url = "/convert?from=" + from + "&to=" + to + "&amount=1";
+        return exchangeRateFlights.execute(from + "/" + to, () -> currencyWebClient.get()
                 .uri(url)
                 .header("apikey", currencyApiKey)
                 .retrieve()
                 .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .timeout(Duration.ofMillis(currencyTimeoutMs))
                 .doOnSuccess(response -> log.info("Tasa obtenida: {} a {}", from, to))
-                .onErrorResume(ex -> Mono.just(Map.of("error", ex.getMessage(), "success", false)));
+                .onErrorResume(ex -> Mono.just(Map.of("error", String.valueOf(ex.getMessage()), "success", false))))
+                .map(response -> forAmount(response, from, to, amount));
+    }
+
+    // Respuesta de /convert con amount=1 llevada al importe pedido (result = tasa x importe)
+    private Map<String, Object> forAmount(Map<String, Object> response, String from, String to, Double amount) {
+        Object rate = response.get("result");
+        if (!Boolean.TRUE.equals(response.get("success")) || !(rate instanceof Number)) {
+            return response;
+        }
+        Map<String, Object> converted = new HashMap<>(response);
+        converted.put("query", Map.of("from", from, "to", to, "amount", amount));
+        converted.put("result", ((Number) rate).doubleValue() * amount);
+        converted.put("rate", ((Number) rate).doubleValue());
+        return converted;
     }
 
     // CONSULTAR DNI
@@ -68,7 +98,8 @@ public class ExternalApiService {
                 .header("Authorization", "Bearer " + dniApiKey)
                 .retrieve()
                 .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .onErrorResume(ex -> Mono.just(Map.of("error", ex.getMessage(), "success", false)));
+                .timeout(Duration.ofMillis(dniTimeoutMs))
+                .onErrorResume(ex -> Mono.just(Map.of("error", String.valueOf(ex.getMessage()), "success", false)));
     }
 
     // OBTENER TASAS DE CAMBIO MÚLTIPLES
@@ -89,7 +120,8 @@ public class ExternalApiService {
                 .header("apikey", currencyApiKey)
                 .retrieve()
                 .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .onErrorResume(ex -> Mono.just(Map.of("error", ex.getMessage(), "success", false)));
+                .timeout(Duration.ofMillis(currencyTimeoutMs))
+                .onErrorResume(ex -> Mono.just(Map.of("error", String.valueOf(ex.getMessage()), "success", false)));
     }
 
     public boolean isCurrencyApiConfigured() {
@@ -0,0 +1,325 @@
+package com.studybuddy.service;
+
+import com.studybuddy.model.StudyGroup;
+import com.studybuddy.repository.StudyGroupRepository;
+import com.studybuddy.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria para la búsqueda de grupos de estudio.
+ * Sustituye las consultas LOWER(col) LIKE '%x%' (que no pueden usar índices) por
+ * búsqueda por términos sobre nombre, descripción, materia, tags, ubicación y horario,
+ * con ranking por relevancia (peso del campo x idf). Se carga con una consulta de
+ * proyección la primera vez y se actualiza tras el commit de cada cambio de grupo.
+ */
+@Component
+public class GroupSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupSearchIndex.class);
+
+    // Pesos por campo: coincidir en el nombre o la materia cuenta más que en la descripción
+    private static final float NAME_WEIGHT = 3f;
+    private static final float SUBJECT_WEIGHT = 3f;
+    private static final float TAGS_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final float LOCATION_WEIGHT = 1f;
+    private static final float SCHEDULE_WEIGHT = 1f;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final StudyGroupRepository studyGroupRepository;
+
+    private final Map<Long, GroupDoc> docs = new ConcurrentHashMap<>();
+    // término -> (grupo -> peso acumulado del término en el grupo); ordenado para expandir prefijos
+    private final ConcurrentSkipListMap<String, Map<Long, Float>> postings = new ConcurrentSkipListMap<>();
+
+    private volatile boolean loaded = false;
+
+    public GroupSearchIndex(StudyGroupRepository studyGroupRepository) {
+        this.studyGroupRepository = studyGroupRepository;
+    }
+
+    // ================= CARGA ===================
+
+    public synchronized void rebuild() {
+        docs.clear();
+        postings.clear();
+        for (Object[] row : studyGroupRepository.findSearchableGroups()) {
+            add(new GroupDoc((Long) row[0], (String) row[1], (String) row[2], (String) row[3],
+                    (String) row[4], (String) row[5], (String) row[6], (String) row[7],
+                    (Boolean) row[8], (Boolean) row[9], (Integer) row[10], (Integer) row[11]));
+        }
+        loaded = true;
+        logger.info("Índice de búsqueda de grupos construido con {} grupos y {} términos", docs.size(), postings.size());
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    rebuild();
+                }
+            }
+        }
+    }
+
+    // ================= ACTUALIZACIÓN ===================
+
+    // Reindexa el grupo cuando la transacción actual confirma (o de inmediato si no hay transacción)
+    public void indexAfterCommit(StudyGroup group) {
+        GroupDoc doc = GroupDoc.of(group);
+        TransactionHooks.afterCommit(() -> update(doc));
+    }
+
+    public void removeAfterCommit(Long groupId) {
+        TransactionHooks.afterCommit(() -> remove(groupId));
+    }
+
+    // Altas y bajas de miembros: solo cambia el contador, los términos del grupo siguen igual
+    public void adjustMembersAfterCommit(Long groupId, int delta) {
+        TransactionHooks.afterCommit(() -> adjustMembers(groupId, delta));
+    }
+
+    private synchronized void update(GroupDoc doc) {
+        if (!loaded) {
+            return; // Se indexará en la primera carga completa
+        }
+        GroupDoc previous = docs.get(doc.id);
+        removePostings(doc.id);
+        // El contador de miembros lo mantiene adjustMembers (joins/leaves por SQL nativo);
+        // el de la entidad puede ser anterior a un join confirmado mientras tanto
+        add(previous != null ? doc.withCurrentMembers(previous.currentMembers) : doc);
+    }
+
+    // Bajo el mismo lock que update(): un join/leave no puede colarse entre el remove y el add
+    private synchronized void adjustMembers(Long groupId, int delta) {
+        GroupDoc doc = docs.get(groupId);
+        if (doc != null) {
+            docs.put(groupId, doc.withCurrentMembers(Math.max(0, doc.currentMembers + delta)));
+        }
+    }
+
+    private synchronized void remove(Long groupId) {
+        if (loaded) {
+            removePostings(groupId);
+        }
+    }
+
+    private void add(GroupDoc doc) {
+        docs.put(doc.id, doc);
+        for (Map.Entry<String, Float> term : doc.terms.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), k -> new ConcurrentHashMap<>()).put(doc.id, term.getValue());
+        }
+    }
+
+    private void removePostings(Long groupId) {
+        GroupDoc previous = docs.remove(groupId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms.keySet()) {
+            Map<Long, Float> groups = postings.get(term);
+            if (groups != null) {
+                groups.remove(groupId);
+                if (groups.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    // ================= CONSULTA ===================
+
+    /**
+     * Grupos activos que contienen todos los términos de la consulta, ordenados por relevancia.
+     * El último término se toma como prefijo ("mat" encuentra "matemáticas"), como hacía el LIKE.
+     * Los filtros nulos no se aplican (mismos filtros que StudyGroupRepository.searchGroups).
+     */
+    public List<SearchHit> search(String query, String difficulty, Boolean isPublic, Boolean hasSpots) {
+        ensureLoaded();
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Se empieza por el término más raro para recorrer la lista de candidatos más corta
+        List<Map<Long, Float>> lists = new ArrayList<>();
+        List<String> termList = new ArrayList<>(terms);
+        for (int i = 0; i < termList.size(); i++) {
+            String term = termList.get(i);
+            Map<Long, Float> groups = i == termList.size() - 1 ? prefixPostings(term) : postings.get(term);
+            if (groups == null || groups.isEmpty()) {
+                return new ArrayList<>();
+            }
+            lists.add(groups);
+        }
+        lists.sort(Comparator.comparingInt(Map::size));
+
+        int totalDocs = Math.max(1, docs.size());
+        List<SearchHit> hits = new ArrayList<>();
+        for (Long groupId : lists.get(0).keySet()) {
+            float score = 0;
+            boolean all = true;
+            for (Map<Long, Float> groups : lists) {
+                Float weight = groups.get(groupId);
+                if (weight == null) {
+                    all = false;
+                    break;
+                }
+                score += weight * (float) Math.log(1.0 + (double) totalDocs / groups.size());
+            }
+            GroupDoc doc = docs.get(groupId);
+            if (all && doc != null && doc.matches(difficulty, isPublic, hasSpots)) {
+                hits.add(new SearchHit(doc, score));
+            }
+        }
+        hits.sort(SearchHit.BEST_FIRST);
+        return hits;
+    }
+
+    // Une las listas de todos los términos que empiezan por el prefijo (peso máximo por grupo)
+    private Map<Long, Float> prefixPostings(String prefix) {
+        SortedMap<String, Map<Long, Float>> matching = postings.subMap(prefix, prefix + Character.MAX_VALUE);
+        if (matching.size() == 1) {
+            return matching.values().iterator().next();
+        }
+        Map<Long, Float> merged = new HashMap<>();
+        for (Map<Long, Float> groups : matching.values()) {
+            groups.forEach((groupId, weight) -> merged.merge(groupId, weight, Math::max));
+        }
+        return merged;
+    }
+
+    public int size() {
+        return docs.size();
+    }
+
+    // Minúsculas, sin tildes, partido por cualquier carácter que no sea letra o dígito.
+    // Se conservan los términos de una letra: materias como "C" o "R" tienen que seguir
+    // encontrándose, igual que con el LIKE
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD))
+                .replaceAll("");
+        for (String token : NON_WORD.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // ================= MODELO ===================
+
+    // Copia inmutable de lo que hace falta para filtrar y mostrar un resultado
+    public static final class GroupDoc {
+        private final Long id;
+        private final String name;
+        private final String description;
+        private final String subject;
+        private final String difficultyLevel;
+        private final boolean isPublic;
+        private final boolean isActive;
+        private final int currentMembers;
+        private final int maxMembers;
+        private final Map<String, Float> terms;
+
+        GroupDoc(Long id, String name, String description, String subject, String tags, String location,
+                 String schedule, String difficultyLevel, Boolean isPublic, Boolean isActive,
+                 Integer currentMembers, Integer maxMembers) {
+            this.id = id;
+            this.name = name;
+            this.description = description;
+            this.subject = subject;
+            this.difficultyLevel = difficultyLevel;
+            this.isPublic = Boolean.TRUE.equals(isPublic);
+            this.isActive = !Boolean.FALSE.equals(isActive);
+            this.currentMembers = currentMembers != null ? currentMembers : 0;
+            this.maxMembers = maxMembers != null ? maxMembers : 0;
+
+            Map<String, Float> weights = new HashMap<>();
+            addTerms(weights, name, NAME_WEIGHT);
+            addTerms(weights, subject, SUBJECT_WEIGHT);
+            addTerms(weights, tags, TAGS_WEIGHT);
+            addTerms(weights, description, DESCRIPTION_WEIGHT);
+            addTerms(weights, location, LOCATION_WEIGHT);
+            addTerms(weights, schedule, SCHEDULE_WEIGHT);
+            this.terms = weights;
+        }
+
+        private GroupDoc(GroupDoc source, int currentMembers) {
+            this.id = source.id;
+            this.name = source.name;
+            this.description = source.description;
+            this.subject = source.subject;
+            this.difficultyLevel = source.difficultyLevel;
+            this.isPublic = source.isPublic;
+            this.isActive = source.isActive;
+            this.currentMembers = currentMembers;
+            this.maxMembers = source.maxMembers;
+            this.terms = source.terms;
+        }
+
+        GroupDoc withCurrentMembers(int currentMembers) {
+            return new GroupDoc(this, currentMembers);
+        }
+
+        static GroupDoc of(StudyGroup g) {
+            return new GroupDoc(g.getId(), g.getName(), g.getDescription(), g.getSubject(), g.getTags(),
+                    g.getLocation(), g.getSchedule(), g.getDifficultyLevel(), g.getIsPublic(), g.getIsActive(),
+                    g.getCurrentMembers(), g.getMaxMembers());
+        }
+
+        private static void addTerms(Map<String, Float> weights, String text, float weight) {
+            for (String token : tokenize(text)) {
+                weights.merge(token, weight, Float::sum);
+            }
+        }
+
+        boolean matches(String difficulty, Boolean isPublicFilter, Boolean hasSpots) {
+            if (!isActive) return false;
+            if (difficulty != null && !difficulty.equals(difficultyLevel)) return false;
+            if (isPublicFilter != null && isPublicFilter != isPublic) return false;
+            if (hasSpots != null && hasSpots != (currentMembers < maxMembers)) return false;
+            return true;
+        }
+
+        public Long getId() { return id; }
+        public String getName() { return name; }
+        public String getDescription() { return description; }
+        public String getSubject() { return subject; }
+        public String getDifficultyLevel() { return difficultyLevel; }
+        public boolean isPublic() { return isPublic; }
+        public int getCurrentMembers() { return currentMembers; }
+        public int getMaxMembers() { return maxMembers; }
+    }
+
+    public static final class SearchHit {
+        public static final Comparator<SearchHit> BEST_FIRST =
+                Comparator.comparingDouble(SearchHit::getScore).reversed()
+                          .thenComparing(hit -> hit.getGroup().getId());
+
+        private final GroupDoc group;
+        private final float score;
+
+        public SearchHit(GroupDoc group, float score) {
+            this.group = group;
+            this.score = score;
+        }
+
+        public GroupDoc getGroup() { return group; }
+        public float getScore() { return score; }
+    }
+}
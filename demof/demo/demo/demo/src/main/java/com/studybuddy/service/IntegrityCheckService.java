@@ -0,0 +1,78 @@
+package com.studybuddy.service;
+
+import com.studybuddy.repository.StudyGroupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Comprobación de invariantes en caliente, pensada para lanzarla durante o después de
+ * una prueba de carga: contadores de miembros frente a group_members y cuentas del
+ * escritor diferido del chat (aceptados = guardados + descartados + pendientes).
+ */
+@Service
+@Transactional(readOnly = true)
+public class IntegrityCheckService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IntegrityCheckService.class);
+
+    private final StudyGroupRepository studyGroupRepository;
+    private final ChatMessageWriter chatMessageWriter;
+
+    public IntegrityCheckService(StudyGroupRepository studyGroupRepository,
+                                 ChatMessageWriter chatMessageWriter) {
+        this.studyGroupRepository = studyGroupRepository;
+        this.chatMessageWriter = chatMessageWriter;
+    }
+
+    public Map<String, Object> check() {
+        long start = System.nanoTime();
+
+        // ================= MIEMBROS ===================
+        List<Map<String, Object>> groups = new ArrayList<>();
+        for (Object[] row : studyGroupRepository.findMembershipInconsistencies()) {
+            Map<String, Object> group = new LinkedHashMap<>();
+            group.put("id", row[0]);
+            group.put("name", row[1]);
+            group.put("currentMembers", row[2]);
+            group.put("maxMembers", row[3]);
+            group.put("actualMembers", row[4]);
+            groups.add(group);
+        }
+
+        // ================= CHAT ===================
+        long accepted = chatMessageWriter.getAcceptedCount();
+        long persisted = chatMessageWriter.getPersistedCount();
+        long dropped = chatMessageWriter.getDroppedCount();
+        int queued = chatMessageWriter.getQueueSize();
+        Map<String, Object> chat = new LinkedHashMap<>();
+        chat.put("writeBehindEnabled", chatMessageWriter.isEnabled());
+        chat.put("accepted", accepted);
+        chat.put("persisted", persisted);
+        chat.put("dropped", dropped);
+        chat.put("queued", queued);
+        // Lote que el hilo de escritura tiene en mano (fuera de la cola y aún sin confirmar)
+        chat.put("inFlight", Math.max(0, accepted - persisted - dropped - queued));
+
+        boolean healthy = groups.isEmpty() && dropped == 0;
+        if (!healthy) {
+            logger.warn("Comprobación de integridad: {} grupos inconsistentes, {} mensajes descartados",
+                    groups.size(), dropped);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("healthy", healthy);
+        report.put("inconsistentGroups", groups);
+        report.put("chatWriter", chat);
+        report.put("checkedAt", LocalDateTime.now());
+        report.put("elapsedMs", (System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+}
@@ -0,0 +1,471 @@
+package com.studybuddy.service;
+
+import com.studybuddy.model.Interest;
+import com.studybuddy.model.User;
+import com.studybuddy.repository.UserRepository;
+import com.studybuddy.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Índice invertido en memoria para el matching de compañeros.
+ * Mantiene listas de usuarios por carrera, universidad, semestre e interés,
+ * de modo que solo se puntúan los candidatos que comparten algo con el usuario.
+ */
+@Component
+public class MatchingIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchingIndex.class);
+
+    // Mismos pesos que usaba MatchingService.calculateMatchScore
+    public static final int CAREER_WEIGHT = 2;
+    public static final int UNIVERSITY_WEIGHT = 1;
+    public static final int SEMESTER_WEIGHT = 1;
+    public static final int INTEREST_WEIGHT = 1;
+
+    private final UserRepository userRepository;
+
+    private final Map<Long, MatchProfile> profiles = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> byCareer = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> byUniversity = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Long>> bySemester = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> byInterest = new ConcurrentHashMap<>();
+
+    // Usuarios cuyo perfil cambió desde la última vez que se consultó (ver MatchingSnapshotService)
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean loaded = false;
+
+    public MatchingIndex(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    // ================= CARGA ===================
+
+    // Reconstruye el índice completo con dos consultas de proyección (sin cargar entidades User)
+    public synchronized void rebuild() {
+        Map<Long, Set<Long>> interestsByUser = new HashMap<>();
+        for (Object[] row : userRepository.findEnabledUserInterestIds()) {
+            interestsByUser.computeIfAbsent((Long) row[0], k -> new HashSet<>()).add((Long) row[1]);
+        }
+
+        profiles.clear();
+        byCareer.clear();
+        byUniversity.clear();
+        bySemester.clear();
+        byInterest.clear();
+
+        for (Object[] row : userRepository.findEnabledMatchingProfiles()) {
+            Long id = (Long) row[0];
+            MatchProfile profile = new MatchProfile(id, (String) row[1], (String) row[2], (Integer) row[3],
+                    interestsByUser.getOrDefault(id, Set.of()));
+            addPostings(profile);
+        }
+
+        loaded = true;
+        logger.info("Índice de matching construido con {} perfiles", profiles.size());
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    rebuild();
+                }
+            }
+        }
+    }
+
+    // ================= ACTUALIZACIÓN INCREMENTAL ===================
+
+    // Reindexar un usuario tras cambiar su perfil o sus intereses
+    public void update(User user) {
+        if (user != null && user.getId() != null) {
+            replace(user.getId(), user.isEnabled() ? MatchProfile.of(user) : null);
+        }
+    }
+
+    public void remove(Long userId) {
+        if (userId != null) {
+            replace(userId, null);
+        }
+    }
+
+    // Igual que update/remove pero aplicados solo si la transacción en curso hace commit,
+    // para que un rollback no deje el índice por delante de la base de datos.
+    // El perfil se copia ahora: tras el commit la entidad puede estar ya desligada de la sesión.
+    public void updateAfterCommit(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        Long id = user.getId();
+        MatchProfile profile = user.isEnabled() ? MatchProfile.of(user) : null;
+        TransactionHooks.afterCommit(() -> replace(id, profile));
+    }
+
+    public void removeAfterCommit(Long userId) {
+        if (userId != null) {
+            TransactionHooks.afterCommit(() -> replace(userId, null));
+        }
+    }
+
+    // profile == null deja al usuario fuera del índice (deshabilitado o borrado)
+    private synchronized void replace(Long userId, MatchProfile profile) {
+        if (!loaded) {
+            return; // Se indexará en la primera carga completa
+        }
+        removePostings(userId);
+        dirty.add(userId);
+        if (profile != null) {
+            addPostings(profile);
+        }
+    }
+
+    // Devuelve y limpia el conjunto de usuarios modificados
+    public Set<Long> drainDirty() {
+        Set<Long> drained = new HashSet<>();
+        for (Long id : dirty) {
+            if (dirty.remove(id)) {
+                drained.add(id);
+            }
+        }
+        return drained;
+    }
+
+    private void addPostings(MatchProfile profile) {
+        profiles.put(profile.getId(), profile);
+        if (profile.getCareer() != null) {
+            byCareer.computeIfAbsent(profile.getCareer(), k -> ConcurrentHashMap.newKeySet()).add(profile.getId());
+        }
+        if (profile.getUniversity() != null) {
+            byUniversity.computeIfAbsent(profile.getUniversity(), k -> ConcurrentHashMap.newKeySet()).add(profile.getId());
+        }
+        if (profile.getSemester() != null) {
+            bySemester.computeIfAbsent(profile.getSemester(), k -> ConcurrentHashMap.newKeySet()).add(profile.getId());
+        }
+        for (long interestId : profile.getInterestIds()) {
+            byInterest.computeIfAbsent(interestId, k -> ConcurrentHashMap.newKeySet()).add(profile.getId());
+        }
+    }
+
+    private void removePostings(Long userId) {
+        MatchProfile old = profiles.remove(userId);
+        if (old == null) {
+            return;
+        }
+        removeFrom(byCareer, old.getCareer(), userId);
+        removeFrom(byUniversity, old.getUniversity(), userId);
+        removeFrom(bySemester, old.getSemester(), userId);
+        for (long interestId : old.getInterestIds()) {
+            removeFrom(byInterest, interestId, userId);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, Set<Long>> postings, K key, Long userId) {
+        if (key == null) {
+            return;
+        }
+        Set<Long> ids = postings.get(key);
+        if (ids != null) {
+            ids.remove(userId);
+            if (ids.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    // ================= CONSULTAS ===================
+
+    public MatchProfile getProfile(User user) {
+        ensureLoaded();
+        MatchProfile profile = profiles.get(user.getId());
+        return profile != null ? profile : MatchProfile.of(user);
+    }
+
+    // Ids de todos los usuarios indexados (copia, para recorridos completos)
+    public List<Long> userIds() {
+        ensureLoaded();
+        return new ArrayList<>(profiles.keySet());
+    }
+
+    // Perfil indexado por id, o null si el usuario no está (deshabilitado o inexistente)
+    public MatchProfile getProfile(Long userId) {
+        ensureLoaded();
+        return profiles.get(userId);
+    }
+
+    // Top-K candidatos por puntuación (desempate por id para resultados estables).
+    // Con muchos candidatos se reparte el trabajo en el ForkJoinPool común: cada
+    // tarea mantiene un min-heap acotado a K y los heaps se fusionan al final.
+    public List<ScoredMatch> findTopMatches(MatchProfile me, int limit, int minScore) {
+        ensureLoaded();
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        Set<Long> candidateIds = new HashSet<>();
+        addAll(candidateIds, byCareer, me.getCareer());
+        addAll(candidateIds, byUniversity, me.getUniversity());
+        addAll(candidateIds, bySemester, me.getSemester());
+        for (long interestId : me.getInterestIds()) {
+            addAll(candidateIds, byInterest, interestId);
+        }
+        candidateIds.remove(me.getId());
+
+        List<MatchProfile> candidates = new ArrayList<>(candidateIds.size());
+        for (Long candidateId : candidateIds) {
+            MatchProfile other = profiles.get(candidateId);
+            if (other != null) {
+                candidates.add(other);
+            }
+        }
+
+        TopKTask task = new TopKTask(me, candidates.toArray(new MatchProfile[0]), 0, candidates.size(), limit, minScore);
+        PriorityQueue<ScoredMatch> heap = candidates.size() > PARALLEL_THRESHOLD
+                ? ForkJoinPool.commonPool().invoke(task)
+                : task.compute();
+
+        List<ScoredMatch> top = new ArrayList<>(heap);
+        top.sort(ScoredMatch.BEST_FIRST);
+        return top;
+    }
+
+    // Por debajo de este número de candidatos no compensa paralelizar
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private static final class TopKTask extends RecursiveTask<PriorityQueue<ScoredMatch>> {
+        private final MatchProfile me;
+        private final MatchProfile[] candidates;
+        private final int from;
+        private final int to;
+        private final int k;
+        private final int minScore;
+
+        TopKTask(MatchProfile me, MatchProfile[] candidates, int from, int to, int k, int minScore) {
+            this.me = me;
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+            this.k = k;
+            this.minScore = minScore;
+        }
+
+        @Override
+        protected PriorityQueue<ScoredMatch> compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                PriorityQueue<ScoredMatch> heap = new PriorityQueue<>(k + 1, ScoredMatch.BEST_FIRST.reversed());
+                for (int i = from; i < to; i++) {
+                    MatchProfile other = candidates[i];
+                    int score = score(me, other);
+                    if (score >= minScore) {
+                        offer(heap, new ScoredMatch(other.getId(), score), k);
+                    }
+                }
+                return heap;
+            }
+
+            int mid = (from + to) >>> 1;
+            TopKTask left = new TopKTask(me, candidates, from, mid, k, minScore);
+            TopKTask right = new TopKTask(me, candidates, mid, to, k, minScore);
+            left.fork();
+            PriorityQueue<ScoredMatch> merged = right.compute();
+            for (ScoredMatch match : left.join()) {
+                offer(merged, match, k);
+            }
+            return merged;
+        }
+
+        // Inserta en el min-heap manteniendo como máximo K elementos (la cabeza es el peor)
+        private static void offer(PriorityQueue<ScoredMatch> heap, ScoredMatch match, int k) {
+            if (heap.size() < k) {
+                heap.add(match);
+            } else if (ScoredMatch.BEST_FIRST.compare(match, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(match);
+            }
+        }
+    }
+
+    private static <K> void addAll(Set<Long> target, Map<K, Set<Long>> postings, K key) {
+        if (key == null) {
+            return;
+        }
+        Set<Long> ids = postings.get(key);
+        if (ids != null) {
+            target.addAll(ids);
+        }
+    }
+
+    // CALCULAR PUNTUACIÓN DE MATCH
+    public static int score(MatchProfile a, MatchProfile b) {
+        int score = 0;
+        if (a.getCareer() != null && a.getCareer().equals(b.getCareer())) {
+            score += CAREER_WEIGHT;
+        }
+        if (a.getUniversity() != null && a.getUniversity().equals(b.getUniversity())) {
+            score += UNIVERSITY_WEIGHT;
+        }
+        if (a.getSemester() != null && a.getSemester().equals(b.getSemester())) {
+            score += SEMESTER_WEIGHT;
+        }
+        score += a.commonInterests(b) * INTEREST_WEIGHT;
+        return score;
+    }
+
+    public int size() {
+        ensureLoaded();
+        return profiles.size();
+    }
+
+    // ================= TIPOS ===================
+
+    // Vista inmutable del perfil de matching de un usuario.
+    // Los intereses se guardan como bitset (bit = posición densa del interés, ver InterestOrdinals)
+    // para calcular la intersección con AND + Long.bitCount, sin asignar memoria ni tocar Hibernate.
+    public static final class MatchProfile {
+        private static final long[] NO_INTERESTS = new long[0];
+
+        private final Long id;
+        private final String career;
+        private final String university;
+        private final Integer semester;
+        private final long[] interestBits;
+
+        public MatchProfile(Long id, String career, String university, Integer semester, Collection<Long> interestIds) {
+            this.id = id;
+            this.career = career;
+            this.university = university;
+            this.semester = semester;
+            this.interestBits = toBits(interestIds);
+        }
+
+        public static MatchProfile of(User user) {
+            List<Long> interestIds = new ArrayList<>();
+            if (user.getInterests() != null) {
+                for (Interest interest : user.getInterests()) {
+                    interestIds.add(interest.getId());
+                }
+            }
+            return new MatchProfile(user.getId(), user.getCareer(), user.getUniversity(), user.getSemester(), interestIds);
+        }
+
+        private static long[] toBits(Collection<Long> interestIds) {
+            int[] ordinals = new int[interestIds.size()];
+            int count = 0;
+            int max = -1;
+            for (Long interestId : interestIds) {
+                if (interestId != null) {
+                    int ordinal = InterestOrdinals.ordinal(interestId);
+                    ordinals[count++] = ordinal;
+                    max = Math.max(max, ordinal);
+                }
+            }
+            if (max < 0) {
+                return NO_INTERESTS;
+            }
+            long[] bits = new long[(max >>> 6) + 1];
+            for (int i = 0; i < count; i++) {
+                bits[ordinals[i] >>> 6] |= 1L << ordinals[i];
+            }
+            return bits;
+        }
+
+        // Número de intereses en común (AND palabra a palabra)
+        public int commonInterests(MatchProfile other) {
+            long[] a = interestBits;
+            long[] b = other.interestBits;
+            int words = Math.min(a.length, b.length);
+            int common = 0;
+            for (int i = 0; i < words; i++) {
+                common += Long.bitCount(a[i] & b[i]);
+            }
+            return common;
+        }
+
+        // Ids de interés decodificados del bitset (solo se usa al indexar)
+        public long[] getInterestIds() {
+            int count = 0;
+            for (long word : interestBits) {
+                count += Long.bitCount(word);
+            }
+            long[] ids = new long[count];
+            int n = 0;
+            for (int w = 0; w < interestBits.length; w++) {
+                long word = interestBits[w];
+                while (word != 0) {
+                    ids[n++] = InterestOrdinals.interestId((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return ids;
+        }
+
+        // Palabras de 64 bits del bitset de intereses
+        int interestWords() { return interestBits.length; }
+
+        public Long getId() { return id; }
+        public String getCareer() { return career; }
+        public String getUniversity() { return university; }
+        public Integer getSemester() { return semester; }
+    }
+
+    // Tabla Interest.id -> posición de bit en los bitsets de MatchProfile.
+    // Las posiciones se asignan consecutivas la primera vez que aparece un interés y no se
+    // reutilizan: los perfiles construidos en momentos distintos siguen siendo comparables y
+    // el tamaño de cada bitset depende del número de intereses distintos, no del mayor id.
+    private static final class InterestOrdinals {
+        private static final Map<Long, Integer> ordinals = new ConcurrentHashMap<>();
+        // Posición -> id; se publica entera antes de registrar la posición en el mapa
+        private static volatile long[] ids = new long[64];
+        private static int next = 0;
+
+        static int ordinal(long interestId) {
+            Integer ordinal = ordinals.get(interestId);
+            return ordinal != null ? ordinal : assign(interestId);
+        }
+
+        private static synchronized int assign(long interestId) {
+            Integer ordinal = ordinals.get(interestId);
+            if (ordinal != null) {
+                return ordinal;
+            }
+            int assigned = next++;
+            long[] current = ids;
+            if (assigned >= current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[assigned] = interestId;
+            ids = current;
+            ordinals.put(interestId, assigned);
+            return assigned;
+        }
+
+        static long interestId(int ordinal) {
+            return ids[ordinal];
+        }
+    }
+
+    // Resultado de matching: id del candidato y su puntuación
+    public static final class ScoredMatch {
+        public static final Comparator<ScoredMatch> BEST_FIRST =
+                Comparator.comparingInt(ScoredMatch::getScore).reversed()
+                          .thenComparing(ScoredMatch::getUserId);
+
+        private final Long userId;
+        private final int score;
+
+        public ScoredMatch(Long userId, int score) {
+            this.userId = userId;
+            this.score = score;
+        }
+
+        public Long getUserId() { return userId; }
+        public int getScore() { return score; }
+    }
+}
@@ -1,5 +1,7 @@
 package com.studybuddy.service;
 
+import com.studybuddy.dto.BuddyMatchDTO;
+import com.studybuddy.dto.BuddyMatchesDTO;
 import com.studybuddy.model.User;
 import com.studybuddy.repository.UserRepository;
 import com.studybuddy.repository.StudyGroupRepository; // Aseguramos este import
@@ -8,69 +10,79 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class MatchingService {
     
+    // Máximo de compañeros devueltos y puntuación mínima de compatibilidad
+    public static final int DEFAULT_MATCH_LIMIT = 10;
+    public static final int DEFAULT_MIN_SCORE = 2;
+    
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private MatchingSnapshotService matchingSnapshotService;
+    
     // ENCONTRAR COMPAÑEROS COMPATIBLES
+    // Lee el top precalculado por MatchingSnapshotService (índice invertido en memoria:
+    // solo se puntúan usuarios que comparten carrera, universidad, semestre o algún interés).
     public List<User> findMatches(User currentUser) {
-        // CORRECCIÓN CRÍTICA: Cambiado de findByIsActiveTrue() a findByEnabledTrue()
-        // para coincidir con la entidad User y el repositorio actualizado.
-        List<User> allUsers = userRepository.findByEnabledTrue();
-        
-        List<User> matches = new ArrayList<>();
+        List<MatchingIndex.ScoredMatch> top = selectTop(
+                matchingSnapshotService.getSnapshot(currentUser), DEFAULT_MATCH_LIMIT, DEFAULT_MIN_SCORE);
+        return loadInOrder(top);
+    }
+    
+    // TOP-K COMPAÑEROS CON PUNTUACIÓN
+    // K y la puntuación mínima los decide quien llama (ver MatchingController);
+    // computedAt indica la antigüedad del resultado precalculado.
+    public BuddyMatchesDTO findTopMatches(User currentUser, int k, int minScore) {
+        MatchingSnapshotService.MatchSnapshot snapshot = matchingSnapshotService.getSnapshot(currentUser);
+        List<MatchingIndex.ScoredMatch> top = selectTop(snapshot, k, minScore);
+        List<User> users = loadInOrder(top);
         
-        for (User user : allUsers) {
-            if (user.getId().equals(currentUser.getId())) {
-                continue; // Saltar el usuario actual
-            }
-            
-            int score = calculateMatchScore(currentUser, user);
-            
-            if (score >= 2) { // Mínimo 2 puntos de compatibilidad
-                matches.add(user);
-            }
-            
-            // Limitar a 10 matches
-            if (matches.size() >= 10) {
+        Map<Long, Integer> scores = top.stream()
+                .collect(Collectors.toMap(MatchingIndex.ScoredMatch::getUserId, MatchingIndex.ScoredMatch::getScore));
+        List<BuddyMatchDTO> result = new ArrayList<>(users.size());
+        for (User user : users) {
+            result.add(new BuddyMatchDTO(user, scores.get(user.getId())));
+        }
+        return new BuddyMatchesDTO(result, snapshot.getComputedAt());
+    }
+    
+    // El snapshot ya está ordenado por puntuación: basta con filtrar y cortar
+    private List<MatchingIndex.ScoredMatch> selectTop(MatchingSnapshotService.MatchSnapshot snapshot,
+                                                      int k, int minScore) {
+        List<MatchingIndex.ScoredMatch> top = new ArrayList<>();
+        for (MatchingIndex.ScoredMatch match : snapshot.getMatches()) {
+            if (top.size() >= k || match.getScore() < minScore) {
                 break;
             }
+            top.add(match);
         }
-        
-        return matches;
+        return top;
     }
     
-    // CALCULAR PUNTUACIÓN DE MATCH
-    private int calculateMatchScore(User user1, User user2) {
-        int score = 0;
-        
-        // Misma carrera = 2 puntos
-        if (user1.getCareer() != null && user1.getCareer().equals(user2.getCareer())) {
-            score += 2;
-        }
-        
-        // Misma universidad = 1 punto
-        if (user1.getUniversity() != null && user1.getUniversity().equals(user2.getUniversity())) {
-            score += 1;
+    // Carga los usuarios en una sola consulta y respeta el orden por puntuación
+    private List<User> loadInOrder(List<MatchingIndex.ScoredMatch> top) {
+        if (top.isEmpty()) {
+            return new ArrayList<>();
         }
+        List<Long> ids = top.stream().map(MatchingIndex.ScoredMatch::getUserId).collect(Collectors.toList());
+        Map<Long, User> byId = userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
         
-        // Mismo semestre = 1 punto
-        if (user1.getSemester() != null && user1.getSemester().equals(user2.getSemester())) {
-            score += 1;
-        }
-        
-        // Intereses en común = 1 punto por interés
-        if (user1.getInterests() != null && user2.getInterests() != null) {
-            long commonInterests = user1.getInterests().stream()
-                    .filter(user2.getInterests()::contains)
-                    .count();
-            score += commonInterests;
+        List<User> matches = new ArrayList<>();
+        for (Long id : ids) {
+            User user = byId.get(id);
+            if (user != null) {
+                matches.add(user);
+            }
         }
-        
-        return score;
+        return matches;
     }
     
     // BUSCAR POR CARRERA Y SEMESTRE
@@ -0,0 +1,121 @@
+package com.studybuddy.service;
+
+import com.studybuddy.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabla en memoria con los mejores compañeros precalculados de cada usuario activo.
+ * Las lecturas salen de aquí; un job programado recalcula solo los usuarios afectados
+ * por cambios de perfil y, con menos frecuencia, todos los usuarios.
+ */
+@Service
+public class MatchingSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchingSnapshotService.class);
+
+    // Se guardan suficientes resultados para servir cualquier K/minScore que acepte la API
+    public static final int SNAPSHOT_SIZE = 50;
+    public static final int SNAPSHOT_MIN_SCORE = 1;
+
+    private final MatchingIndex matchingIndex;
+
+    private final Map<Long, MatchSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    public MatchingSnapshotService(MatchingIndex matchingIndex) {
+        this.matchingIndex = matchingIndex;
+    }
+
+    // ================= LECTURA ===================
+
+    // Devuelve el snapshot del usuario; si aún no existe se calcula en el momento
+    public MatchSnapshot getSnapshot(User user) {
+        MatchSnapshot snapshot = snapshots.get(user.getId());
+        if (snapshot != null) {
+            return snapshot;
+        }
+        if (matchingIndex.getProfile(user.getId()) == null) {
+            // Usuario no indexado (p. ej. deshabilitado): se calcula sin guardar
+            return compute(matchingIndex.getProfile(user));
+        }
+        return recompute(user.getId());
+    }
+
+    // ================= RECOMPUTACIÓN ===================
+
+    // Incremental: usuarios modificados y aquellos cuyo top los incluía
+    @Scheduled(fixedDelayString = "${app.matching.refresh-interval-ms:30000}",
+               initialDelayString = "${app.matching.refresh-interval-ms:30000}")
+    public void refreshChanged() {
+        Set<Long> changed = matchingIndex.drainDirty();
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        Set<Long> affected = new HashSet<>(changed);
+        for (Map.Entry<Long, MatchSnapshot> entry : snapshots.entrySet()) {
+            for (MatchingIndex.ScoredMatch match : entry.getValue().getMatches()) {
+                if (changed.contains(match.getUserId())) {
+                    affected.add(entry.getKey());
+                    break;
+                }
+            }
+        }
+
+        for (Long userId : affected) {
+            recompute(userId);
+        }
+        logger.debug("Matches recalculados para {} usuarios ({} modificados)", affected.size(), changed.size());
+    }
+
+    // Completo: recoge también candidatos nuevos que el incremental no detecta
+    @Scheduled(fixedDelayString = "${app.matching.full-refresh-interval-ms:900000}",
+               initialDelayString = "${app.matching.full-refresh-initial-delay-ms:10000}")
+    public void refreshAll() {
+        matchingIndex.drainDirty();
+        List<Long> userIds = matchingIndex.userIds();
+        for (Long userId : userIds) {
+            recompute(userId);
+        }
+        snapshots.keySet().retainAll(new HashSet<>(userIds));
+        logger.info("Matches precalculados para {} usuarios", userIds.size());
+    }
+
+    private MatchSnapshot recompute(Long userId) {
+        MatchingIndex.MatchProfile profile = matchingIndex.getProfile(userId);
+        if (profile == null) {
+            snapshots.remove(userId);
+            return new MatchSnapshot(Collections.emptyList(), LocalDateTime.now());
+        }
+        MatchSnapshot snapshot = compute(profile);
+        snapshots.put(userId, snapshot);
+        return snapshot;
+    }
+
+    private MatchSnapshot compute(MatchingIndex.MatchProfile profile) {
+        List<MatchingIndex.ScoredMatch> top =
+                matchingIndex.findTopMatches(profile, SNAPSHOT_SIZE, SNAPSHOT_MIN_SCORE);
+        return new MatchSnapshot(Collections.unmodifiableList(top), LocalDateTime.now());
+    }
+
+    // ================= MODELO ===================
+
+    public static final class MatchSnapshot {
+        private final List<MatchingIndex.ScoredMatch> matches;
+        private final LocalDateTime computedAt;
+
+        public MatchSnapshot(List<MatchingIndex.ScoredMatch> matches, LocalDateTime computedAt) {
+            this.matches = matches;
+            this.computedAt = computedAt;
+        }
+
+        public List<MatchingIndex.ScoredMatch> getMatches() { return matches; }
+        public LocalDateTime getComputedAt() { return computedAt; }
+    }
+}
@@ -0,0 +1,82 @@
+package com.studybuddy.service;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa llamadas idénticas a un servicio externo: mientras hay una petición en curso
+ * para una clave, el resto de llamadas con esa clave se suscriben al mismo Mono en lugar
+ * de lanzar otra. El resultado se reutiliza durante un TTL corto tras completarse.
+ * Los errores y los resultados que no pasan el filtro no se guardan.
+ * El mapa no pasa de maxEntries (en curso + completadas): con el mapa lleno de entradas
+ * vigentes, una clave nueva se ejecuta sin agrupar en lugar de registrarse.
+ */
+public class SingleFlight<T> {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Predicate<T> cacheable;
+
+    private final Map<String, Flight<T>> flights = new ConcurrentHashMap<>();
+
+    public SingleFlight(Duration ttl, int maxEntries, Predicate<T> cacheable) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.cacheable = cacheable;
+    }
+
+    public Mono<T> execute(String key, Supplier<Mono<T>> loader) {
+        return Mono.defer(() -> {
+            long now = System.nanoTime();
+            if (flights.size() >= maxEntries && !flights.containsKey(key)) {
+                purgeExpired(now);
+                if (flights.size() >= maxEntries) {
+                    return loader.get();
+                }
+            }
+            // loader solo construye el Mono (en frío), así que puede llamarse dentro de compute
+            return flights.compute(key, (k, existing) ->
+                    existing != null && existing.isUsable(now, ttlNanos) ? existing : start(k, loader)).mono;
+        });
+    }
+
+    private Flight<T> start(String key, Supplier<Mono<T>> loader) {
+        Flight<T> flight = new Flight<>();
+        flight.mono = loader.get()
+                .doOnSuccess(value -> {
+                    if (value != null && cacheable.test(value)) {
+                        flight.completedAt = System.nanoTime();
+                        flight.done = true;
+                    } else {
+                        flights.remove(key, flight);
+                    }
+                })
+                .doOnError(e -> flights.remove(key, flight))
+                .cache();
+        return flight;
+    }
+
+    private void purgeExpired(long now) {
+        flights.entrySet().removeIf(entry -> !entry.getValue().isUsable(now, ttlNanos));
+    }
+
+    public int size() {
+        return flights.size();
+    }
+
+    private static final class Flight<T> {
+        private Mono<T> mono;
+        private volatile boolean done;
+        private volatile long completedAt;
+
+        // En curso, o completado hace menos del TTL
+        boolean isUsable(long now, long ttlNanos) {
+            return !done || now - completedAt < ttlNanos;
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.studybuddy.service;
 
+import com.studybuddy.dto.GroupSummaryDTO;
 import com.studybuddy.model.StudyGroup;
 import com.studybuddy.controller.StudyGroupController.CreateGroupRequest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -10,6 +14,9 @@ public interface StudyGroupService {
     
     List<StudyGroup> findAll();
     
+    // Listado paginado para vistas y API (proyección, sin entidades)
+    Page<GroupSummaryDTO> findSummaries(Pageable pageable);
+    
     Optional<StudyGroup> findById(Long id);
     
     StudyGroup createGroup(CreateGroupRequest request, String username);
@@ -23,4 +30,7 @@ public interface StudyGroupService {
     void leaveGroup(Long groupId, String username);
     
     List<StudyGroup> findByMember(String username);
+    
+    // matchAll = true: grupos con todos los tags (AND); false: con alguno (OR)
+    List<GroupSummaryDTO> findByTags(Collection<String> tags, boolean matchAll);
 }
\ No newline at end of file
@@ -1,10 +1,13 @@
 package com.studybuddy.service;
 
+import com.studybuddy.dto.GroupSummaryDTO;
 import com.studybuddy.model.StudyGroup;
 import com.studybuddy.model.User;
 import com.studybuddy.repository.StudyGroupRepository;
 import com.studybuddy.repository.UserRepository;
 import com.studybuddy.controller.StudyGroupController.CreateGroupRequest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,11 +20,23 @@ public class StudyGroupServiceImpl implements StudyGroupService {
 
     private final StudyGroupRepository studyGroupRepository;
     private final UserRepository userRepository;
+    private final ChatMessageCache chatMessageCache;
+    private final GroupSearchIndex groupSearchIndex;
+    private final TagPopularityService tagPopularityService;
+    private final AutocompleteIndex autocompleteIndex;
 
     public StudyGroupServiceImpl(StudyGroupRepository studyGroupRepository, 
-                                UserRepository userRepository) {
+                                UserRepository userRepository,
+                                ChatMessageCache chatMessageCache,
+                                GroupSearchIndex groupSearchIndex,
+                                TagPopularityService tagPopularityService,
+                                AutocompleteIndex autocompleteIndex) {
         this.studyGroupRepository = studyGroupRepository;
         this.userRepository = userRepository;
+        this.chatMessageCache = chatMessageCache;
+        this.groupSearchIndex = groupSearchIndex;
+        this.tagPopularityService = tagPopularityService;
+        this.autocompleteIndex = autocompleteIndex;
     }
 
     @Override
@@ -29,6 +44,12 @@ public class StudyGroupServiceImpl implements StudyGroupService {
         return studyGroupRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<GroupSummaryDTO> findSummaries(Pageable pageable) {
+        return studyGroupRepository.findGroupSummaries(pageable);
+    }
+
     @Override
     public Optional<StudyGroup> findById(Long id) {
         return studyGroupRepository.findById(id);
@@ -46,6 +67,7 @@ public class StudyGroupServiceImpl implements StudyGroupService {
         group.setSubject(request.getSubject());
         group.setMaxMembers(request.getMaxMembers() != null ? request.getMaxMembers() : 10);
         group.setIsPublic(request.isPublic());
+        group.setTagValues(StudyGroup.parseTagsCsv(request.getTags()));
         group.setIsChatEnabled(request instanceof com.studybuddy.controller.StudyGroupController.CreateGroupRequest ? ((com.studybuddy.controller.StudyGroupController.CreateGroupRequest) request).isChatEnabled() : false);
         
         // Datos automáticos
@@ -59,7 +81,11 @@ public class StudyGroupServiceImpl implements StudyGroupService {
         }
         group.addMember(creator);
         
-        return studyGroupRepository.save(group);
+        StudyGroup saved = studyGroupRepository.save(group);
+        groupSearchIndex.indexAfterCommit(saved);
+        tagPopularityService.recordChangeAfterCommit(Set.of(), new HashSet<>(saved.getTagSet()));
+        autocompleteIndex.recordSubjectChangeAfterCommit(null, saved.getSubject());
+        return saved;
     }
 
     @Override
@@ -75,45 +101,85 @@ public class StudyGroupServiceImpl implements StudyGroupService {
 
         if (updates.containsKey("name")) group.setName((String) updates.get("name"));
         if (updates.containsKey("description")) group.setDescription((String) updates.get("description"));
+        String previousSubject = group.getSubject();
         if (updates.containsKey("subject")) group.setSubject((String) updates.get("subject"));
         
-        return studyGroupRepository.save(group);
+        Set<String> previousTags = new HashSet<>(group.getTagSet());
+        if (updates.containsKey("tags")) {
+            Object tags = updates.get("tags");
+            if (tags instanceof Collection<?> values) {
+                group.setTagValues(values.stream().map(String::valueOf).toList());
+            } else {
+                group.setTagValues(StudyGroup.parseTagsCsv(tags != null ? tags.toString() : null));
+            }
+        }
+        
+        StudyGroup saved = studyGroupRepository.save(group);
+        groupSearchIndex.indexAfterCommit(saved);
+        tagPopularityService.recordChangeAfterCommit(previousTags, new HashSet<>(saved.getTagSet()));
+        autocompleteIndex.recordSubjectChangeAfterCommit(previousSubject, saved.getSubject());
+        return saved;
     }
 
     @Override
     public void deleteGroup(Long id, String username) {
         StudyGroup group = studyGroupRepository.findById(id).orElse(null);
         if (group != null && group.getCreator() != null && group.getCreator().getUsername().equals(username)) {
+            Set<String> previousTags = new HashSet<>(group.getTagSet());
             studyGroupRepository.delete(group);
+            tagPopularityService.recordChangeAfterCommit(previousTags, Set.of());
+            autocompleteIndex.recordSubjectChangeAfterCommit(group.getSubject(), null);
+            chatMessageCache.evictAfterCommit(id);
+            groupSearchIndex.removeAfterCommit(id);
         }
     }
 
     @Override
     public void joinGroup(Long groupId, String username) {
-        StudyGroup group = studyGroupRepository.findById(groupId)
-                .orElseThrow(() -> new RuntimeException("Grupo no encontrado"));
-        
-        User user = userRepository.findByUsername(username)
+        Long userId = userRepository.findIdByUsername(username)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
         
-        // Usar el método helper del modelo
-        if (!group.addMember(user)) {
-            throw new RuntimeException("No se pudo unir: El grupo está lleno o ya eres miembro.");
+        // Dos sentencias cortas sea cual sea el tamaño del grupo: reservar cupo e insertar la fila
+        if (studyGroupRepository.reserveMemberSpot(groupId, userId) == 0) {
+            List<Object[]> info = studyGroupRepository.findMembershipInfo(groupId);
+            if (info.isEmpty()) {
+                throw new RuntimeException("Grupo no encontrado");
+            }
+            if (studyGroupRepository.countMembership(groupId, userId) > 0) {
+                throw new RuntimeException("No se pudo unir: ya eres miembro del grupo.");
+            }
+            throw new RuntimeException("No se pudo unir: El grupo está lleno.");
+        }
+        if (studyGroupRepository.insertMember(groupId, userId) == 0) {
+            // Otra petición del mismo usuario se adelantó; la excepción deshace la reserva
+            throw new RuntimeException("No se pudo unir: ya eres miembro del grupo.");
         }
-        studyGroupRepository.save(group);
+        // El número de miembros afecta al filtro "con cupos"
+        groupSearchIndex.adjustMembersAfterCommit(groupId, 1);
     }
 
     @Override
     public void leaveGroup(Long groupId, String username) {
-        StudyGroup group = studyGroupRepository.findById(groupId)
-                .orElseThrow(() -> new RuntimeException("Grupo no encontrado"));
-        
-        User user = userRepository.findByUsername(username)
+        Long userId = userRepository.findIdByUsername(username)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-
-        // Usar el método helper del modelo
-        if (group.removeMember(user)) {
-            studyGroupRepository.save(group);
+        
+        List<Object[]> info = studyGroupRepository.findMembershipInfo(groupId);
+        if (info.isEmpty()) {
+            throw new RuntimeException("Grupo no encontrado");
+        }
+        // El creador no puede abandonar su propio grupo
+        if (userId.equals(info.get(0)[0])) {
+            return;
+        }
+        // Primero la fila del grupo y luego group_members, el mismo orden que joinGroup: un alta y una
+        // baja concurrentes del mismo grupo se esperan en la fila del grupo en lugar de cruzar bloqueos
+        // (deadlock en InnoDB). Por eso no hace falta reintentar ante deadlock en este par de operaciones.
+        if (studyGroupRepository.releaseMemberSpot(groupId, userId) > 0) {
+            if (studyGroupRepository.deleteMember(groupId, userId) == 0) {
+                // No debería pasar con la fila del grupo bloqueada; la excepción deshace el descuento
+                throw new RuntimeException("No se pudo salir del grupo, inténtalo de nuevo.");
+            }
+            groupSearchIndex.adjustMembersAfterCommit(groupId, -1);
         }
     }
 
@@ -123,4 +189,20 @@ public class StudyGroupServiceImpl implements StudyGroupService {
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
         return studyGroupRepository.findByMemberId(user.getId());
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<GroupSummaryDTO> findByTags(Collection<String> tags, boolean matchAll) {
+        Set<String> normalized = StudyGroup.normalizeTags(tags);
+        if (normalized.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = matchAll
+                ? studyGroupRepository.findIdsByAllTags(normalized, normalized.size())
+                : studyGroupRepository.findIdsByAnyTag(normalized);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return studyGroupRepository.findGroupSummariesByIds(ids);
+    }
+}
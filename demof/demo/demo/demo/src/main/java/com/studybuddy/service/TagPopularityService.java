@@ -0,0 +1,92 @@
+package com.studybuddy.service;
+
+import com.studybuddy.repository.StudyGroupRepository;
+import com.studybuddy.util.TransactionHooks;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Popularidad de tags (número de grupos que usan cada tag) mantenida de forma incremental.
+ * Se carga una vez con un GROUP BY sobre group_tags y después solo se aplican las
+ * diferencias de cada alta, edición o borrado de grupo, tras el commit.
+ */
+@Service
+public class TagPopularityService {
+
+    private final StudyGroupRepository studyGroupRepository;
+
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+
+    public TagPopularityService(StudyGroupRepository studyGroupRepository) {
+        this.studyGroupRepository = studyGroupRepository;
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    counts.clear();
+                    for (Object[] row : studyGroupRepository.countGroupsPerTag()) {
+                        counts.computeIfAbsent((String) row[0], k -> new LongAdder()).add((Long) row[1]);
+                    }
+                    loaded = true;
+                }
+            }
+        }
+    }
+
+    // Registra el cambio de tags de un grupo (before/after vacíos para alta/borrado)
+    public void recordChangeAfterCommit(Set<String> before, Set<String> after) {
+        Set<String> removed = new HashSet<>(before);
+        removed.removeAll(after);
+        Set<String> added = new HashSet<>(after);
+        added.removeAll(before);
+        if (removed.isEmpty() && added.isEmpty()) {
+            return;
+        }
+
+        // Mismo lock que la carga: un cambio confirmado mientras se ejecuta el GROUP BY
+        // espera a que termine y se aplica después, en lugar de perderse con loaded = false
+        Runnable apply = () -> {
+            synchronized (this) {
+                if (!loaded) {
+                    return; // La carga inicial ya leerá el estado confirmado
+                }
+                for (String tag : added) {
+                    counts.computeIfAbsent(tag, k -> new LongAdder()).increment();
+                }
+                for (String tag : removed) {
+                    LongAdder count = counts.get(tag);
+                    if (count != null) {
+                        count.decrement();
+                    }
+                }
+            }
+        };
+        TransactionHooks.afterCommit(apply);
+    }
+
+    // Tags más usados, de mayor a menor
+    public List<Map.Entry<String, Long>> topTags(int limit) {
+        ensureLoaded();
+        List<Map.Entry<String, Long>> top = new ArrayList<>();
+        for (Map.Entry<String, LongAdder> entry : counts.entrySet()) {
+            long count = entry.getValue().sum();
+            if (count > 0) {
+                top.add(Map.entry(entry.getKey(), count));
+            }
+        }
+        top.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        return top.size() > limit ? top.subList(0, limit) : top;
+    }
+
+    public long count(String tag) {
+        ensureLoaded();
+        LongAdder count = counts.get(tag);
+        return count != null ? count.sum() : 0;
+    }
+}
@@ -1,8 +1,12 @@
 package com.studybuddy.service;
 
 import com.studybuddy.model.User;
+import com.studybuddy.dto.AdminUserSummary;
 import com.studybuddy.dto.RegisterRequest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -44,6 +48,10 @@ public interface UserService {
     long countByRole(String role);
     long countTodayRegistrations();
 
+    // Listado paginado con proyección (role: "admin", "student", "moderator" o null)
+    Page<AdminUserSummary> searchUsers(String query, Boolean enabled, String role, Pageable pageable);
+    Map<Long, List<String>> findRoleNames(Collection<Long> userIds);
+
     User updateRole(Long userId, String role);
     User updateStatus(Long userId, boolean active);
     void deleteUser(Long userId);
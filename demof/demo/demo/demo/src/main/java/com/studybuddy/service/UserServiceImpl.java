@@ -6,7 +6,12 @@ import com.studybuddy.model.Interest;
 import com.studybuddy.repository.UserRepository;
 import com.studybuddy.repository.RoleRepository;
 import com.studybuddy.repository.InterestRepository;
+import com.studybuddy.dto.AdminUserSummary;
 import com.studybuddy.dto.RegisterRequest;
+import com.studybuddy.security.TokenRevocationList;
+import com.studybuddy.security.UserDetailsCache;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,15 +28,27 @@ public class UserServiceImpl implements UserService {
     private final RoleRepository roleRepository;
     private final InterestRepository interestRepository;
     private final PasswordEncoder passwordEncoder;
+    private final MatchingIndex matchingIndex;
+    private final UserDetailsCache userDetailsCache;
+    private final TokenRevocationList tokenRevocationList;
+    private final AutocompleteIndex autocompleteIndex;
 
     public UserServiceImpl(UserRepository userRepository,
                            RoleRepository roleRepository,
                            InterestRepository interestRepository,
-                           PasswordEncoder passwordEncoder) {
+                           PasswordEncoder passwordEncoder,
+                           MatchingIndex matchingIndex,
+                           UserDetailsCache userDetailsCache,
+                           TokenRevocationList tokenRevocationList,
+                           AutocompleteIndex autocompleteIndex) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.interestRepository = interestRepository;
         this.passwordEncoder = passwordEncoder;
+        this.matchingIndex = matchingIndex;
+        this.userDetailsCache = userDetailsCache;
+        this.tokenRevocationList = tokenRevocationList;
+        this.autocompleteIndex = autocompleteIndex;
     }
 
     // ================= BÚSQUEDAS ===================
@@ -52,7 +69,13 @@ public class UserServiceImpl implements UserService {
     public User save(User user) { return userRepository.save(user); }
 
     @Override
-    public void deleteById(Long id) { userRepository.deleteById(id); }
+    public void deleteById(Long id) {
+        userRepository.deleteById(id);
+        matchingIndex.removeAfterCommit(id);
+        userDetailsCache.evictUserAfterCommit(id);
+        tokenRevocationList.revokeUserAfterCommit(id);
+        autocompleteIndex.removeUserAfterCommit(id);
+    }
 
     @Override
     public boolean existsByUsername(String username) {
@@ -115,7 +138,10 @@ public class UserServiceImpl implements UserService {
         user.setEnabled(true);
         user.setCreatedAt(LocalDateTime.now());
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        matchingIndex.updateAfterCommit(saved);
+        autocompleteIndex.indexUserAfterCommit(saved);
+        return saved;
     }
 
     // ================= ACTUALIZAR CAMPOS ===================
@@ -137,6 +163,8 @@ public class UserServiceImpl implements UserService {
                 case "password" -> {
                     if (value.length() >= 6) {
                         user.setPassword(passwordEncoder.encode(value));
+                        // Los tokens emitidos con la contraseña anterior dejan de valer
+                        tokenRevocationList.revokeUserAfterCommit(user.getId());
                     }
                 }
                 case "career" -> user.setCareer(value.trim());
@@ -163,7 +191,11 @@ public class UserServiceImpl implements UserService {
             }
         });
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        matchingIndex.updateAfterCommit(saved);
+        userDetailsCache.evictUserAfterCommit(saved.getId());
+        autocompleteIndex.indexUserAfterCommit(saved);
+        return saved;
     }
 
     // ================= CONTADORES ===================
@@ -176,18 +208,52 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public long countByRole(String role) {
-        return findAll().stream()
-                .filter(user -> getUserRole(user).equals(role))
-                .count();
+        // "ROLE_USER" es el valor que se muestra para usuarios sin rol
+        if ("ROLE_USER".equals(role)) {
+            return userRepository.countWithoutRoles();
+        }
+        try {
+            return userRepository.countByRoleName(Role.ERole.valueOf(role));
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
     }
 
     @Override
     public long countTodayRegistrations() {
-        LocalDate today = LocalDate.now();
-        return userRepository.findAll().stream()
-                .filter(u -> u.getCreatedAt() != null &&
-                             u.getCreatedAt().toLocalDate().equals(today))
-                .count();
+        return userRepository.countByCreatedAtGreaterThanEqual(LocalDate.now().atStartOfDay());
+    }
+
+    // ================= LISTADO ADMIN ===================
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<AdminUserSummary> searchUsers(String query, Boolean enabled, String role, Pageable pageable) {
+        String q = (query == null || query.isBlank()) ? null : query.trim();
+        Role.ERole roleFilter = null;
+        if (role != null && !role.isBlank()) {
+            String normalized = role.toUpperCase().startsWith("ROLE_") ? role.toUpperCase() : "ROLE_" + role.toUpperCase();
+            try {
+                roleFilter = Role.ERole.valueOf(normalized);
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Rol no válido: " + role);
+            }
+        }
+        return userRepository.searchUsersWithPagination(q, enabled, roleFilter, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, List<String>> findRoleNames(Collection<Long> userIds) {
+        Map<Long, List<String>> roles = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return roles;
+        }
+        for (Object[] row : userRepository.findRoleNamesByUserIds(userIds)) {
+            roles.computeIfAbsent((Long) row[0], k -> new ArrayList<>())
+                 .add(((Role.ERole) row[1]).name().replace("ROLE_", ""));
+        }
+        return roles;
     }
 
     // ================= ROLES ===================
@@ -208,7 +274,10 @@ public class UserServiceImpl implements UserService {
 
         user.setRoles(Set.of(newRole));
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userDetailsCache.evictUserAfterCommit(saved.getId());
+        tokenRevocationList.revokeUserAfterCommit(saved.getId());
+        return saved;
     }
 
     @Override
@@ -217,11 +286,22 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
         user.setEnabled(active);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        matchingIndex.updateAfterCommit(saved);
+        userDetailsCache.evictUserAfterCommit(saved.getId());
+        tokenRevocationList.revokeUserAfterCommit(saved.getId());
+        autocompleteIndex.indexUserAfterCommit(saved);
+        return saved;
     }
 
     @Override
-    public void deleteUser(Long userId) { userRepository.deleteById(userId); }
+    public void deleteUser(Long userId) {
+        userRepository.deleteById(userId);
+        matchingIndex.removeAfterCommit(userId);
+        userDetailsCache.evictUserAfterCommit(userId);
+        tokenRevocationList.revokeUserAfterCommit(userId);
+        autocompleteIndex.removeUserAfterCommit(userId);
+    }
 
     @Override
     public User findByUsername(String username) {
@@ -229,13 +309,6 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
     }
 
-    private String getUserRole(User user) {
-        if (user.getRoles() != null && !user.getRoles().isEmpty()) {
-            return user.getRoles().iterator().next().getName().name();
-        }
-        return "ROLE_USER";
-    }
-    
     // ================= GESTIÓN DE INTERESES ===================
     
     @Override
@@ -252,7 +325,9 @@ public class UserServiceImpl implements UserService {
         
         if (!user.getInterests().contains(interest)) {
             user.getInterests().add(interest);
-            return userRepository.save(user);
+            User saved = userRepository.save(user);
+            matchingIndex.updateAfterCommit(saved);
+            return saved;
         }
         return user;
     }
@@ -264,7 +339,9 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new RuntimeException("Interés no encontrado"));
         
         user.getInterests().remove(interest);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        matchingIndex.updateAfterCommit(saved);
+        return saved;
     }
     
     @Override
@@ -0,0 +1,28 @@
+package com.studybuddy.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Acciones en memoria (índices, cachés, contadores) que deben seguir a la base de datos:
+ * dentro de una transacción se aplican solo si hace commit, para que un rollback no deje
+ * la memoria por delante de lo confirmado. Fuera de una transacción se aplican en el acto.
+ */
+public final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
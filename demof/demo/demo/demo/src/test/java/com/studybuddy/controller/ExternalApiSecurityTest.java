@@ -0,0 +1,104 @@
+package com.studybuddy.controller;
+
+import com.studybuddy.model.DniInfo;
+import com.studybuddy.model.User;
+import com.studybuddy.repository.DniInfoRepository;
+import com.studybuddy.repository.UserRepository;
+import com.studybuddy.security.JwtTokenProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Los endpoints de /api/external devuelven Mono: la respuesta se escribe en un segundo paso
+ * (dispatch ASYNC) que también pasa por la seguridad. Un cliente con token Bearer y sin
+ * sesión tiene que seguir autenticado en ese segundo paso.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ExternalApiSecurityTest {
+
+    private static final String DNI = "40123456";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private DniInfoRepository dniInfoRepository;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        String username = "bearer_" + System.nanoTime();
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@test.local");
+        user.setPassword("x");
+        user.setCreatedAt(LocalDateTime.now());
+        userRepository.save(user);
+        token = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(username, null, List.of()));
+
+        // DNI ya verificado: se responde desde dni_info sin llamar a RENIEC
+        DniInfo info = dniInfoRepository.findByDniNumber(DNI).orElseGet(DniInfo::new);
+        info.setDniNumber(DNI);
+        info.setFirstName("Ana");
+        info.setLastName("Quispe");
+        info.setMotherLastName("Huamán");
+        info.setIsValid(true);
+        info.setLastVerified(LocalDateTime.now());
+        dniInfoRepository.save(info);
+    }
+
+    @Test
+    void currencyConversionWithBearerTokenAndNoSession() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/external/currency/convert")
+                        .param("from", "USD").param("to", "USD").param("amount", "10")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.result").value(10.0));
+    }
+
+    @Test
+    void dniLookupWithBearerTokenAndNoSession() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/external/dni/{dni}", DNI)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+    }
+
+    @Test
+    void requestWithoutTokenIsRejected() throws Exception {
+        mockMvc.perform(get("/api/external/dni/{dni}", DNI))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().is3xxRedirection());
+    }
+}
@@ -0,0 +1,71 @@
+package com.studybuddy.security;
+
+import com.studybuddy.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserDetailsCacheTest {
+
+    private final UserDetailsCache cache = new UserDetailsCache(300, 100);
+
+    @Test
+    void loadedDetailsAreReused() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("ana", name -> load(1L, name, loads));
+        cache.get("ana", name -> load(1L, name, loads));
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void evictionOutsideTransactionIsImmediate() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("ana", name -> load(1L, name, loads));
+        cache.evictUserAfterCommit(1L);
+        cache.get("ana", name -> load(1L, name, loads));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void loadStartedBeforeEvictionIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        // El commit (y su invalidación) llega mientras otra petición sigue leyendo la fila antigua
+        UserDetails stale = cache.get("ana", name -> {
+            UserDetails details = load(1L, name, loads);
+            cache.removeUser(1L);
+            return details;
+        });
+        assertThat(stale).isNotNull();
+
+        cache.get("ana", name -> load(1L, name, loads));
+        cache.get("ana", name -> load(1L, name, loads));
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void evictionOfAnotherUserDoesNotBlockCaching() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("ana", name -> {
+            UserDetails details = load(1L, name, loads);
+            cache.removeUser(2L);
+            return details;
+        });
+        cache.get("ana", name -> load(1L, name, loads));
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    private static UserDetails load(Long id, String username, AtomicInteger loads) {
+        loads.incrementAndGet();
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setPassword("x");
+        return new CustomUserDetails(user);
+    }
+}
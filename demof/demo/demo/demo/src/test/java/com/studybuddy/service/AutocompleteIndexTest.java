@@ -0,0 +1,117 @@
+package com.studybuddy.service;
+
+import com.studybuddy.model.User;
+import com.studybuddy.repository.InterestRepository;
+import com.studybuddy.repository.StudyGroupRepository;
+import com.studybuddy.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AutocompleteIndexTest {
+
+    private AutocompleteIndex index;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> users = new ArrayList<>();
+        users.add(new Object[]{1L, "mateo", "Mateo", "Ramírez"});
+        users.add(new Object[]{2L, "lucia", "Lucía", "Martínez"});
+        users.add(new Object[]{3L, "jperez", "Juan", "Pérez"});
+
+        List<Object[]> interests = new ArrayList<>();
+        interests.add(new Object[]{10L, "Matemáticas aplicadas"});
+        interests.add(new Object[]{11L, "Música"});
+
+        List<Object[]> subjects = new ArrayList<>();
+        subjects.add(new Object[]{"Matemáticas", 2L});
+        subjects.add(new Object[]{"Materiales", 7L});
+        subjects.add(new Object[]{"Marketing", 1L});
+
+        UserRepository userRepository = mock(UserRepository.class);
+        InterestRepository interestRepository = mock(InterestRepository.class);
+        StudyGroupRepository studyGroupRepository = mock(StudyGroupRepository.class);
+        when(userRepository.findEnabledUserNames()).thenReturn(users);
+        when(interestRepository.findActiveInterestNames()).thenReturn(interests);
+        when(studyGroupRepository.countGroupsPerSubject()).thenReturn(subjects);
+
+        index = new AutocompleteIndex(userRepository, interestRepository, studyGroupRepository);
+        index.rebuild();
+    }
+
+    @Test
+    void matchesAnyNamePartIgnoringCaseAndAccents() {
+        assertThat(values(index.suggest("MART", AutocompleteIndex.Type.USER, 8))).containsExactly("lucia");
+        assertThat(values(index.suggest("pere", AutocompleteIndex.Type.USER, 8))).containsExactly("jperez");
+        // "mateo" casa por username y por nombre, pero sale una sola vez
+        assertThat(values(index.suggest("mateo", null, 8))).containsExactly("mateo");
+    }
+
+    @Test
+    void subjectsAreRankedByPopularity() {
+        assertThat(values(index.suggest("ma", AutocompleteIndex.Type.SUBJECT, 8)))
+                .containsExactly("Materiales", "Matemáticas", "Marketing");
+        assertThat(values(index.suggest("ma", AutocompleteIndex.Type.SUBJECT, 1))).containsExactly("Materiales");
+    }
+
+    @Test
+    void mixedResultsPutPopularSubjectsFirstThenAlphabetical() {
+        assertThat(values(index.suggest("mat", null, 8)))
+                .containsExactly("Materiales", "Matemáticas", "Matemáticas aplicadas", "mateo");
+    }
+
+    @Test
+    void typeFilterOnlyReturnsThatType() {
+        assertThat(index.suggest("m", AutocompleteIndex.Type.INTEREST, 8))
+                .extracting(AutocompleteIndex.Suggestion::getType)
+                .containsOnly(AutocompleteIndex.Type.INTEREST)
+                .hasSize(2);
+    }
+
+    @Test
+    void userUpdatesAreReflected() {
+        User user = new User();
+        user.setId(3L);
+        user.setUsername("jperez");
+        user.setFirstName("Juana");
+        user.setLastName("Quispe");
+        user.setEnabled(true);
+        index.indexUserAfterCommit(user);
+
+        assertThat(index.suggest("pere", AutocompleteIndex.Type.USER, 8)).isEmpty();
+        assertThat(values(index.suggest("quis", AutocompleteIndex.Type.USER, 8))).containsExactly("jperez");
+
+        user.setEnabled(false);
+        index.indexUserAfterCommit(user);
+        assertThat(index.suggest("quis", AutocompleteIndex.Type.USER, 8)).isEmpty();
+
+        index.removeUserAfterCommit(1L);
+        assertThat(index.suggest("mateo", null, 8)).isEmpty();
+    }
+
+    @Test
+    void subjectCountsFollowGroupChanges() {
+        // Marketing pasa de 1 a 3 grupos y sigue por detrás de Materiales (7)
+        index.recordSubjectChangeAfterCommit(null, "Marketing");
+        index.recordSubjectChangeAfterCommit(null, "marketing ");
+        assertThat(values(index.suggest("ma", AutocompleteIndex.Type.SUBJECT, 8)))
+                .containsExactly("Materiales", "Marketing", "Matemáticas");
+
+        // El último grupo de Matemáticas cambia de materia: la sugerencia desaparece
+        index.recordSubjectChangeAfterCommit("Matemáticas", "Física");
+        index.recordSubjectChangeAfterCommit("Matemáticas", "Física");
+        assertThat(values(index.suggest("mat", AutocompleteIndex.Type.SUBJECT, 8))).containsExactly("Materiales");
+        assertThat(values(index.suggest("fis", AutocompleteIndex.Type.SUBJECT, 8))).containsExactly("Física");
+    }
+
+    private static List<String> values(List<AutocompleteIndex.Suggestion> suggestions) {
+        return suggestions.stream().map(AutocompleteIndex.Suggestion::getValue).collect(Collectors.toList());
+    }
+}
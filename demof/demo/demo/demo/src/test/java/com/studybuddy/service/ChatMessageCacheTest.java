@@ -0,0 +1,75 @@
+package com.studybuddy.service;
+
+import com.studybuddy.dto.ChatMessageDTO;
+import com.studybuddy.repository.MessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChatMessageCacheTest {
+
+    private static final Long GROUP = 1L;
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 3, 10, 12, 0);
+
+    private MessageRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(MessageRepository.class);
+        // Historial inicial: ids 1..3, del más reciente al más antiguo como findLatestPage
+        List<ChatMessageDTO> latest = new ArrayList<>();
+        for (long id = 3; id >= 1; id--) {
+            latest.add(message(id, id));
+        }
+        when(repository.findLatestPage(eq(GROUP), any(Pageable.class))).thenReturn(latest);
+    }
+
+    @Test
+    void outOfOrderAppendsFollowSentAtAndId() {
+        ChatMessageCache cache = new ChatMessageCache(repository, 10, 10);
+        cache.findPage(GROUP, null, null, 5);
+
+        // Dos envíos concurrentes: el de id 5 se publica antes que el de id 4
+        cache.append(GROUP, message(5, 5));
+        cache.append(GROUP, message(4, 4));
+        // Mismo sentAt que el 5: desempata el id
+        cache.append(GROUP, message(6, 5));
+
+        assertThat(ids(cache.findPage(GROUP, null, null, 10))).containsExactly(6L, 5L, 4L, 3L, 2L, 1L);
+        assertThat(ids(cache.findPage(GROUP, 3L, null, 10))).containsExactly(4L, 5L, 6L);
+        assertThat(ids(cache.findPage(GROUP, null, 6L, 1))).containsExactly(5L, 4L);
+    }
+
+    @Test
+    void olderMessageThanFullBufferIsDropped() {
+        ChatMessageCache cache = new ChatMessageCache(repository, 3, 10);
+        cache.findPage(GROUP, null, null, 2);
+
+        cache.append(GROUP, message(7, 7));
+        // Más antiguo que todo lo que queda en el buffer lleno (2, 3, 7)
+        cache.append(GROUP, message(8, 0));
+
+        assertThat(ids(cache.findPage(GROUP, null, null, 2))).containsExactly(7L, 3L, 2L);
+        // El historial ya no está completo: una página que no cabe va a la base de datos
+        assertThat(cache.findPage(GROUP, null, 2L, 2)).isNull();
+    }
+
+    private static ChatMessageDTO message(long id, long minute) {
+        return new ChatMessageDTO(id, "mensaje " + id, "ana", T0.plusMinutes(minute), "TEXT");
+    }
+
+    private static List<Long> ids(List<ChatMessageDTO> messages) {
+        return messages.stream().map(ChatMessageDTO::getId).collect(Collectors.toList());
+    }
+}
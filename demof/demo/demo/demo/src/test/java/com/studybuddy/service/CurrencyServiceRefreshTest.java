@@ -0,0 +1,47 @@
+package com.studybuddy.service;
+
+import com.studybuddy.repository.CurrencyRateRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CurrencyServiceRefreshTest {
+
+    @Test
+    void unchangedRefreshAdvancesSnapshotTimestamps() {
+        LocalDate lastWeek = LocalDate.now().minusDays(7);
+        List<Object[]> stored = new ArrayList<>();
+        stored.add(new Object[]{"USD", "PEN", 3.75, lastWeek});
+
+        CurrencyRateRepository repository = mock(CurrencyRateRepository.class);
+        ExternalApiService externalApiService = mock(ExternalApiService.class);
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(repository.findLatestRatePerPair()).thenReturn(stored);
+        when(externalApiService.isCurrencyApiConfigured()).thenReturn(true);
+        when(externalApiService.getLatestRates("USD"))
+                .thenReturn(Mono.just(Map.of("success", true, "rates", Map.of("PEN", 3.75))));
+
+        CurrencyService service = new CurrencyService(repository, externalApiService, jdbcTemplate);
+        LocalDateTime before = service.getSnapshot().getLoadedAt();
+
+        CurrencyService.RefreshResult result = service.updateRatesFromApi();
+
+        // Nada que escribir, pero la tabla vigente pasa a ser la de hoy
+        assertThat(result.getSkipped()).isEqualTo(1);
+        verifyNoInteractions(jdbcTemplate);
+        assertThat(service.getSnapshot().getRateDate()).isEqualTo(LocalDate.now());
+        assertThat(service.getSnapshot().getLoadedAt()).isAfterOrEqualTo(before);
+        assertThat(service.getSnapshot().rate("USD", "PEN")).isEqualTo(3.75);
+    }
+}
@@ -0,0 +1,119 @@
+package com.studybuddy.service;
+
+import com.studybuddy.model.StudyGroup;
+import com.studybuddy.repository.StudyGroupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GroupSearchIndexTest {
+
+    private GroupSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(1L, "Cálculo I", "Límites y derivadas", "Matemáticas", "calculo,derivadas", 2, 5));
+        rows.add(row(2L, "Álgebra lineal", "Matrices y vectores", "Matemáticas", "algebra", 5, 5));
+        rows.add(row(3L, "Física general", "Cinemática y dinámica con cálculo", "Física", "fisica", 1, 10));
+        rows.add(row(4L, "Historia del Perú", "Repaso para el parcial", "Historia", null, 3, 8));
+
+        StudyGroupRepository repository = mock(StudyGroupRepository.class);
+        when(repository.findSearchableGroups()).thenReturn(rows);
+        index = new GroupSearchIndex(repository);
+        index.rebuild();
+    }
+
+    @Test
+    void ranksNameAndSubjectAboveDescription() {
+        // "cálculo" está en el nombre del grupo 1 y solo en la descripción del 3
+        assertThat(ids(index.search("calculo", null, null, null))).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void lastTermMatchesAsPrefix() {
+        assertThat(ids(index.search("mat", null, null, null))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids(index.search("MATEMÁTICAS deriv", null, null, null))).containsExactly(1L);
+        // Solo el último término es prefijo
+        assertThat(index.search("mat calculo", null, null, null)).isEmpty();
+    }
+
+    @Test
+    void singleLetterSubjectsAreSearchable() {
+        index.indexAfterCommit(group(5L, "Programación en C", "C", 1, 6));
+        index.indexAfterCommit(group(6L, "Estadística con R", "R", 1, 6));
+
+        assertThat(ids(index.search("C", null, null, null))).contains(5L);
+        assertThat(ids(index.search("programacion c", null, null, null))).containsExactly(5L);
+        assertThat(ids(index.search("r", null, null, null))).contains(6L).doesNotContain(5L);
+    }
+
+    @Test
+    void indexAfterCommitReplacesTerms() {
+        StudyGroup edited = group(4L, "Historia universal", "Historia", 3, 8);
+        index.indexAfterCommit(edited);
+
+        assertThat(index.search("peru", null, null, null)).isEmpty();
+        assertThat(ids(index.search("universal", null, null, null))).containsExactly(4L);
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    void newAndRemovedGroupsAreReflected() {
+        index.indexAfterCommit(group(5L, "Química orgánica", "Química", 1, 6));
+        assertThat(ids(index.search("quimica", null, null, null))).containsExactly(5L);
+
+        index.removeAfterCommit(5L);
+        assertThat(index.search("quimica", null, null, null)).isEmpty();
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    void memberAdjustmentsDriveHasSpotsFilter() {
+        assertThat(ids(index.search("matematicas", null, null, true))).containsExactly(1L);
+
+        index.adjustMembersAfterCommit(2L, -1);
+        assertThat(ids(index.search("matematicas", null, null, true))).containsExactlyInAnyOrder(1L, 2L);
+
+        index.adjustMembersAfterCommit(1L, 3);
+        assertThat(ids(index.search("matematicas", null, null, true))).containsExactly(2L);
+        assertThat(ids(index.search("matematicas", null, null, false))).containsExactly(1L);
+    }
+
+    @Test
+    void editKeepsMemberCountMaintainedByAdjustments() {
+        index.adjustMembersAfterCommit(1L, 2);
+        // La entidad editada trae el contador que tenía al leerse (2), anterior al join
+        index.indexAfterCommit(group(1L, "Cálculo I (turno noche)", "Matemáticas", 2, 5));
+
+        GroupSearchIndex.GroupDoc doc = index.search("noche", null, null, null).get(0).getGroup();
+        assertThat(doc.getCurrentMembers()).isEqualTo(4);
+    }
+
+    private static Object[] row(Long id, String name, String description, String subject, String tags,
+                                int currentMembers, int maxMembers) {
+        return new Object[]{id, name, description, subject, tags, null, null, "Intermedio",
+                true, true, currentMembers, maxMembers};
+    }
+
+    private static StudyGroup group(Long id, String name, String subject, int currentMembers, int maxMembers) {
+        StudyGroup group = new StudyGroup();
+        group.setId(id);
+        group.setName(name);
+        group.setSubject(subject);
+        group.setCurrentMembers(currentMembers);
+        group.setMaxMembers(maxMembers);
+        return group;
+    }
+
+    private static List<Long> ids(List<GroupSearchIndex.SearchHit> hits) {
+        return hits.stream().map(hit -> hit.getGroup().getId()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,130 @@
+package com.studybuddy.service;
+
+import com.studybuddy.controller.StudyGroupController;
+import com.studybuddy.dto.GroupSummaryDTO;
+import com.studybuddy.model.StudyGroup;
+import com.studybuddy.model.User;
+import com.studybuddy.repository.StudyGroupRepository;
+import com.studybuddy.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * El listado de grupos debe costar las mismas sentencias SQL sin importar cuántos grupos,
+ * creadores y miembros haya en la página (proyección + COUNT, sin N+1).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class GroupSummaryQueryCountTest {
+
+    @Autowired
+    private StudyGroupService groupService;
+    @Autowired
+    private StudyGroupRepository groupRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Long> createdGroups = new ArrayList<>();
+    private final List<Long> createdUsers = new ArrayList<>();
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        groupRepository.deleteAllById(createdGroups);
+        userRepository.deleteAllById(createdUsers);
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithGroups() {
+        createGroups(3);
+        long fewGroups = statementsForFirstPage(50);
+
+        createGroups(40);
+        long manyGroups = statementsForFirstPage(50);
+
+        // Consulta de la página + COUNT
+        assertThat(fewGroups).isBetween(1L, 2L);
+        assertThat(manyGroups).isEqualTo(fewGroups);
+    }
+
+    @Test
+    void summaryCarriesCreatorAndMemberCount() {
+        createGroups(1);
+        Page<GroupSummaryDTO> page = groupService.findSummaries(
+                PageRequest.of(0, 10, StudyGroupController.LIST_ORDER));
+
+        GroupSummaryDTO summary = page.getContent().stream()
+                .filter(g -> g.getId().equals(createdGroups.get(0)))
+                .findFirst().orElseThrow();
+        assertThat(summary.getCreatedBy()).startsWith("creator");
+        assertThat(summary.getCurrentMembers()).isEqualTo(3);
+        assertThat(summary.getMaxMembers()).isEqualTo(10);
+    }
+
+    private long statementsForFirstPage(int size) {
+        statistics.clear();
+        Page<GroupSummaryDTO> page = groupService.findSummaries(
+                PageRequest.of(0, size, StudyGroupController.LIST_ORDER));
+        page.getContent().forEach(g -> g.getCreatedBy().length());
+        assertThat(page.getContent()).isNotEmpty();
+        return statistics.getPrepareStatementCount();
+    }
+
+    // Cada grupo con su propio creador y dos miembros más, para que un N+1 se notara
+    private void createGroups(int count) {
+        for (int i = 0; i < count; i++) {
+            User creator = user("creator");
+            Set<User> members = new HashSet<>();
+            members.add(creator);
+            members.add(user("member"));
+            members.add(user("member"));
+
+            StudyGroup group = new StudyGroup();
+            group.setName("Grupo de prueba " + createdGroups.size());
+            group.setSubject("Matemáticas");
+            group.setCreator(creator);
+            group.setMembers(members);
+            group.setCurrentMembers(members.size());
+            group.setMaxMembers(10);
+            group.setCreatedAt(LocalDateTime.now());
+            createdGroups.add(groupRepository.save(group).getId());
+        }
+    }
+
+    private User user(String prefix) {
+        String username = prefix + "_" + System.nanoTime();
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@test.local");
+        user.setPassword("x");
+        user.setCreatedAt(LocalDateTime.now());
+        User saved = userRepository.save(user);
+        createdUsers.add(saved.getId());
+        return saved;
+    }
+}
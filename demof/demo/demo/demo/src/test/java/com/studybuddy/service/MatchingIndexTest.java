@@ -0,0 +1,167 @@
+package com.studybuddy.service;
+
+import com.studybuddy.model.Interest;
+import com.studybuddy.model.User;
+import com.studybuddy.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MatchingIndexTest {
+
+    private static final String[] CAREERS = {"Sistemas", "Medicina", "Derecho", "Arquitectura", "Economía"};
+    private static final String[] UNIVERSITIES = {"UNI", "UNMSM", "PUCP", "UPC"};
+
+    private final Random random = new Random(42);
+
+    private List<MatchingIndex.MatchProfile> profiles;
+    private MatchingIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // Más candidatos que PARALLEL_THRESHOLD para pasar también por el reparto en ForkJoin
+        profiles = randomProfiles(12_000);
+
+        List<Object[]> profileRows = new ArrayList<>();
+        List<Object[]> interestRows = new ArrayList<>();
+        for (MatchingIndex.MatchProfile p : profiles) {
+            profileRows.add(new Object[]{p.getId(), p.getCareer(), p.getUniversity(), p.getSemester()});
+            for (long interestId : p.getInterestIds()) {
+                interestRows.add(new Object[]{p.getId(), interestId});
+            }
+        }
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findEnabledMatchingProfiles()).thenReturn(profileRows);
+        when(userRepository.findEnabledUserInterestIds()).thenReturn(interestRows);
+        index = new MatchingIndex(userRepository);
+        index.rebuild();
+    }
+
+    @Test
+    void topMatchesEqualBruteForceScan() {
+        for (int i = 0; i < 50; i++) {
+            MatchingIndex.MatchProfile me = profiles.get(random.nextInt(profiles.size()));
+            for (int minScore : new int[]{1, 3}) {
+                assertThat(ids(index.findTopMatches(me, 10, minScore)))
+                        .as("usuario %d, minScore %d", me.getId(), minScore)
+                        .isEqualTo(ids(bruteForce(me, 10, minScore)));
+            }
+        }
+    }
+
+    @Test
+    void limitLargerThanCandidatesReturnsAllMatches() {
+        MatchingIndex.MatchProfile me = profiles.get(0);
+        List<MatchingIndex.ScoredMatch> expected = bruteForce(me, Integer.MAX_VALUE, 4);
+
+        assertThat(ids(index.findTopMatches(me, expected.size() + 100, 4))).isEqualTo(ids(expected));
+    }
+
+    @Test
+    void updatedProfileIsScoredWithNewData() {
+        MatchingIndex.MatchProfile me = profiles.get(0);
+        MatchingIndex.MatchProfile other = profiles.get(1);
+
+        // Un usuario idéntico a "me" tiene que salir el primero
+        MatchingIndex.MatchProfile twin = new MatchingIndex.MatchProfile(other.getId(), me.getCareer(),
+                me.getUniversity(), me.getSemester(), toList(me.getInterestIds()));
+        replace(other, twin);
+
+        List<MatchingIndex.ScoredMatch> top = index.findTopMatches(me, 1, 1);
+        assertThat(top).hasSize(1);
+        assertThat(top.get(0).getScore()).isEqualTo(MatchingIndex.score(me, me));
+        assertThat(ids(index.findTopMatches(me, 10, 1))).isEqualTo(ids(bruteForce(me, 10, 1)));
+    }
+
+    @Test
+    void removedUserIsNoLongerReturned() {
+        MatchingIndex.MatchProfile me = profiles.get(0);
+        Long best = index.findTopMatches(me, 1, 1).get(0).getUserId();
+
+        index.remove(best);
+        profiles.removeIf(p -> p.getId().equals(best));
+
+        List<MatchingIndex.ScoredMatch> top = index.findTopMatches(me, 10, 1);
+        assertThat(top).extracting(MatchingIndex.ScoredMatch::getUserId).doesNotContain(best);
+        assertThat(ids(top)).isEqualTo(ids(bruteForce(me, 10, 1)));
+        assertThat(index.drainDirty()).containsExactly(best);
+    }
+
+    private void replace(MatchingIndex.MatchProfile old, MatchingIndex.MatchProfile updated) {
+        User user = new User();
+        user.setId(updated.getId());
+        user.setCareer(updated.getCareer());
+        user.setUniversity(updated.getUniversity());
+        user.setSemester(updated.getSemester());
+        user.setEnabled(true);
+        Set<Interest> interests = new HashSet<>();
+        for (long interestId : updated.getInterestIds()) {
+            Interest interest = new Interest();
+            interest.setId(interestId);
+            interests.add(interest);
+        }
+        user.setInterests(interests);
+        index.update(user);
+        profiles.set(profiles.indexOf(old), updated);
+    }
+
+    @Test
+    void sparseInterestIdsKeepBitsetsSmall() {
+        MatchingIndex.MatchProfile a = new MatchingIndex.MatchProfile(900_001L, null, null, null,
+                List.of(3_000_000_000L, 7L, 2_000_000_001L));
+        MatchingIndex.MatchProfile b = new MatchingIndex.MatchProfile(900_002L, null, null, null,
+                List.of(2_000_000_001L, 3_000_000_000L, 99L));
+
+        // El tamaño depende de cuántos intereses distintos hay, no del mayor id
+        assertThat(a.interestWords()).isLessThanOrEqualTo(8);
+        assertThat(a.commonInterests(b)).isEqualTo(2);
+        assertThat(toList(a.getInterestIds())).containsExactlyInAnyOrder(3_000_000_000L, 7L, 2_000_000_001L);
+    }
+
+    // Referencia: puntuar a todos los usuarios y ordenar
+    private List<MatchingIndex.ScoredMatch> bruteForce(MatchingIndex.MatchProfile me, int limit, int minScore) {
+        return profiles.stream()
+                .filter(p -> !p.getId().equals(me.getId()))
+                .map(p -> new MatchingIndex.ScoredMatch(p.getId(), MatchingIndex.score(me, p)))
+                .filter(m -> m.getScore() >= minScore)
+                .sorted(MatchingIndex.ScoredMatch.BEST_FIRST)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private List<MatchingIndex.MatchProfile> randomProfiles(int count) {
+        List<MatchingIndex.MatchProfile> result = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            Set<Long> interests = new HashSet<>();
+            int interestCount = random.nextInt(6);
+            for (int i = 0; i < interestCount; i++) {
+                interests.add((long) 1 + random.nextInt(150));
+            }
+            result.add(new MatchingIndex.MatchProfile(id,
+                    random.nextInt(10) == 0 ? null : CAREERS[random.nextInt(CAREERS.length)],
+                    UNIVERSITIES[random.nextInt(UNIVERSITIES.length)],
+                    1 + random.nextInt(10),
+                    interests));
+        }
+        return result;
+    }
+
+    private static List<String> ids(List<MatchingIndex.ScoredMatch> matches) {
+        return matches.stream().map(m -> m.getUserId() + ":" + m.getScore()).collect(Collectors.toList());
+    }
+
+    private static List<Long> toList(long[] values) {
+        List<Long> list = new ArrayList<>(values.length);
+        for (long value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,237 @@
+package com.studybuddy.service;
+
+import com.studybuddy.controller.GroupChatController;
+import com.studybuddy.model.StudyGroup;
+import com.studybuddy.model.User;
+import com.studybuddy.repository.MessageRepository;
+import com.studybuddy.repository.StudyGroupRepository;
+import com.studybuddy.repository.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de carga de las rutas con contención: muchos hilos uniéndose, saliendo y escribiendo
+ * en pocos grupos pequeños a la vez. Al terminar, los contadores de miembros tienen que cuadrar
+ * con group_members y ningún grupo puede pasar de su máximo. Los mensajes van por el
+ * write-behind (ChatMessageWriter) con una cola pequeña, y algunos son demasiado largos para la
+ * columna: así se recorren la cola llena, los lotes fallidos, el guardado fila a fila y el
+ * vaciado de @PreDestroy. En base de datos tiene que haber exactamente aceptados − descartados,
+ * y solo se descartan los mensajes inválidos. Informa del throughput y del p99 por operación.
+ *
+ * Corre sobre H2, cuyos bloqueos no son los de InnoDB: no sustituye a una prueba contra MySQL.
+ * Queda fuera de mvn test; se lanza con mvn test -Pstress.
+ * Java 17 no tiene hilos virtuales: se usa un pool fijo con muchos más hilos que núcleos.
+ */
+@Tag("stress")
+@SpringBootTest(properties = {
+        "app.chat.write-behind.enabled=true",
+        "app.chat.write-behind.durability=ACCEPTED",
+        "app.chat.write-behind.queue-capacity=32",
+        "app.chat.write-behind.batch-size=20",
+        "app.chat.write-behind.flush-interval-ms=20",
+        "app.chat.write-behind.enqueue-timeout-ms=5"
+})
+@ActiveProfiles("test")
+class MembershipConcurrencyStressTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(MembershipConcurrencyStressTest.class);
+
+    private static final int THREADS = 64;
+    private static final int OPERATIONS = 6_000;
+    private static final int GROUPS = 10;
+    private static final int USERS = 120;
+    private static final int MAX_MEMBERS = 6;
+    // messages.content es VARCHAR(2000): estos mensajes hacen fallar su lote
+    private static final String OVERSIZED = "x".repeat(2100);
+
+    private enum Op { JOIN, LEAVE, POST }
+
+    @Autowired
+    private StudyGroupService groupService;
+    @Autowired
+    private GroupChatController chatController;
+    @Autowired
+    private IntegrityCheckService integrityCheckService;
+    @Autowired
+    private StudyGroupRepository groupRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MessageRepository messageRepository;
+    @Autowired
+    private ChatMessageWriter chatMessageWriter;
+
+    @Test
+    void membershipAndChatInvariantsHoldUnderContention() throws Exception {
+        String run = Long.toString(System.nanoTime(), 36);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(user("stress_" + run + "_" + i));
+        }
+        List<StudyGroup> groups = new ArrayList<>();
+        for (int i = 0; i < GROUPS; i++) {
+            groups.add(group("Carga " + run + " " + i, users.get(i)));
+        }
+
+        Map<Op, long[]> latencies = new EnumMap<>(Op.class);
+        Map<Op, AtomicInteger> counts = new EnumMap<>(Op.class);
+        for (Op op : Op.values()) {
+            latencies.put(op, new long[OPERATIONS]);
+            counts.put(op, new AtomicInteger());
+        }
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger acceptedMessages = new AtomicInteger();
+        AtomicInteger oversizedAccepted = new AtomicInteger();
+        AtomicInteger queueFull = new AtomicInteger();
+        long acceptedBefore = chatMessageWriter.getAcceptedCount();
+        long persistedBefore = chatMessageWriter.getPersistedCount();
+        long droppedBefore = chatMessageWriter.getDroppedCount();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(OPERATIONS);
+        for (int i = 0; i < OPERATIONS; i++) {
+            long seed = i;
+            futures.add(pool.submit(() -> {
+                start.await();
+                Random random = new Random(seed);
+                User user = users.get(random.nextInt(USERS));
+                Long groupId = groups.get(random.nextInt(GROUPS)).getId();
+                Op op = Op.values()[random.nextInt(Op.values().length)];
+
+                long begin = System.nanoTime();
+                try {
+                    switch (op) {
+                        case JOIN -> groupService.joinGroup(groupId, user.getUsername());
+                        case LEAVE -> groupService.leaveGroup(groupId, user.getUsername());
+                        case POST -> {
+                            boolean oversized = random.nextInt(100) == 0;
+                            ResponseEntity<?> response = chatController.postMessage(groupId,
+                                    Map.of("content", oversized ? OVERSIZED : "mensaje " + seed), authentication(user));
+                            if (response.getStatusCode().value() == 202) {
+                                acceptedMessages.incrementAndGet();
+                                if (oversized) {
+                                    oversizedAccepted.incrementAndGet();
+                                }
+                            } else if (response.getStatusCode().value() == 503) {
+                                queueFull.incrementAndGet(); // Backpressure: cola llena
+                            } else {
+                                unexpected.add(new IllegalStateException("postMessage -> " + response));
+                            }
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    // Grupo lleno o ya miembro: rechazos de negocio esperados
+                    if (e.getMessage() != null && e.getMessage().startsWith("No se pudo unir")) {
+                        rejected.incrementAndGet();
+                    } else {
+                        unexpected.add(e);
+                    }
+                }
+                int slot = counts.get(op).getAndIncrement();
+                latencies.get(op)[slot] = System.nanoTime() - begin;
+                return null;
+            }));
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+        pool.shutdown();
+        // Mismo camino que al apagar (@PreDestroy): vacía la cola antes de comprobar
+        chatMessageWriter.stop();
+
+        logger.info("{} operaciones con {} hilos en {} s: {} ops/s ({} rechazos de negocio, {} mensajes con la cola llena)",
+                OPERATIONS, THREADS, String.format("%.2f", seconds),
+                String.format("%.0f", OPERATIONS / seconds), rejected.get(), queueFull.get());
+        for (Op op : Op.values()) {
+            int n = counts.get(op).get();
+            long[] sample = Arrays.copyOf(latencies.get(op), n);
+            Arrays.sort(sample);
+            logger.info("{}: {} ops, p50 {} ms, p99 {} ms", op, n,
+                    String.format("%.2f", percentile(sample, 0.50) / 1e6),
+                    String.format("%.2f", percentile(sample, 0.99) / 1e6));
+        }
+
+        assertThat(unexpected).as("errores inesperados").isEmpty();
+
+        // Contadores y group_members cuadran y ningún grupo supera el máximo
+        assertThat(groupRepository.findMembershipInconsistencies()).isEmpty();
+        for (StudyGroup group : groups) {
+            Object[] info = groupRepository.findMembershipInfo(group.getId()).get(0);
+            assertThat((Integer) info[1]).isBetween(1, MAX_MEMBERS);
+        }
+
+        // Write-behind: todo lo aceptado acaba guardado o descartado, y solo se descartan los inválidos
+        long accepted = chatMessageWriter.getAcceptedCount() - acceptedBefore;
+        long persisted = chatMessageWriter.getPersistedCount() - persistedBefore;
+        long dropped = chatMessageWriter.getDroppedCount() - droppedBefore;
+        assertThat(chatMessageWriter.getQueueSize()).isZero();
+        assertThat(accepted).isEqualTo(acceptedMessages.get());
+        assertThat(dropped).isEqualTo(oversizedAccepted.get());
+        assertThat(persisted).isEqualTo(accepted - dropped);
+
+        long stored = 0;
+        for (StudyGroup group : groups) {
+            stored += messageRepository.countByStudyGroup(group);
+        }
+        assertThat(stored).isEqualTo(accepted - dropped);
+
+        // Con descartes el informe no sale "healthy"; los grupos sí tienen que cuadrar
+        Map<String, Object> report = integrityCheckService.check();
+        assertThat((List<?>) report.get("inconsistentGroups")).isEmpty();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static Authentication authentication(User user) {
+        return new UsernamePasswordAuthenticationToken(user.getUsername(), null, List.of());
+    }
+
+    private User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@test.local");
+        user.setPassword("x");
+        user.setCreatedAt(LocalDateTime.now());
+        return userRepository.save(user);
+    }
+
+    // El creador cuenta como primer miembro, igual que en createGroup
+    private StudyGroup group(String name, User creator) {
+        StudyGroup group = new StudyGroup();
+        group.setName(name);
+        group.setSubject("Carga");
+        group.setCreator(creator);
+        group.setMembers(new HashSet<>(Set.of(creator)));
+        group.setCurrentMembers(1);
+        group.setMaxMembers(MAX_MEMBERS);
+        group.setIsChatEnabled(true);
+        group.setCreatedAt(LocalDateTime.now());
+        return groupRepository.save(group);
+    }
+}
@@ -0,0 +1,76 @@
+package com.studybuddy.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RateSnapshotTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+
+    private static CurrencyService.RateSnapshot snapshot() {
+        Map<String, Double> rates = new HashMap<>();
+        rates.put("USD/PEN", 3.75);
+        rates.put("USD/EUR", 0.92);
+        rates.put("MXN/USD", 0.055);
+        return new CurrencyService.RateSnapshot(rates, DAY);
+    }
+
+    @Test
+    void sameCurrencyIsOne() {
+        assertThat(snapshot().rate("PEN", "PEN")).isEqualTo(1.0);
+    }
+
+    @Test
+    void directRate() {
+        assertThat(snapshot().rate("USD", "PEN")).isEqualTo(3.75);
+    }
+
+    @Test
+    void inverseRate() {
+        assertThat(snapshot().rate("PEN", "USD")).isCloseTo(1 / 3.75, within(1e-12));
+        assertThat(snapshot().rate("USD", "MXN")).isCloseTo(1 / 0.055, within(1e-9));
+    }
+
+    @Test
+    void crossRateThroughUsd() {
+        // PEN -> EUR: (EUR por USD) / (PEN por USD)
+        assertThat(snapshot().rate("PEN", "EUR")).isCloseTo(0.92 / 3.75, within(1e-12));
+        // MXN solo está guardado como MXN/USD: el pivote usa su inverso
+        assertThat(snapshot().rate("MXN", "PEN")).isCloseTo(3.75 / (1 / 0.055), within(1e-9));
+    }
+
+    @Test
+    void unknownCurrencyHasNoRate() {
+        assertThat(snapshot().rate("PEN", "JPY")).isNull();
+        assertThat(snapshot().rate("JPY", "USD")).isNull();
+    }
+
+    @Test
+    void storedRateIgnoresInverseAndCross() {
+        assertThat(snapshot().storedRate("USD", "PEN")).isEqualTo(3.75);
+        assertThat(snapshot().storedRate("PEN", "USD")).isNull();
+        assertThat(snapshot().storedRate("PEN", "EUR")).isNull();
+    }
+
+    @Test
+    void withReplacesPairsAndKeepsNewestDate() {
+        CurrencyService.RateSnapshot original = snapshot();
+        CurrencyService.RateSnapshot next = original.with(Map.of("USD/PEN", 3.80, "USD/JPY", 150.0), DAY.plusDays(1));
+
+        assertThat(next.rate("USD", "PEN")).isEqualTo(3.80);
+        assertThat(next.rate("PEN", "JPY")).isCloseTo(150.0 / 3.80, within(1e-9));
+        assertThat(next.size()).isEqualTo(4);
+        assertThat(next.getRateDate()).isEqualTo(DAY.plusDays(1));
+        // El original no cambia
+        assertThat(original.rate("USD", "PEN")).isEqualTo(3.75);
+
+        // Una tasa de un día anterior no retrasa la fecha del snapshot
+        assertThat(next.with(Map.of("USD/EUR", 0.9), DAY).getRateDate()).isEqualTo(DAY.plusDays(1));
+    }
+}
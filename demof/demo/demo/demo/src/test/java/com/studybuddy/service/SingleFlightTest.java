@@ -0,0 +1,111 @@
+package com.studybuddy.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    @Test
+    void concurrentCallsShareOneLoad() {
+        SingleFlight<String> flights = new SingleFlight<>(TTL, 100, value -> true);
+        AtomicInteger loads = new AtomicInteger();
+        Sinks.One<String> upstream = Sinks.one();
+
+        Mono<String> first = flights.execute("USD/PEN", () -> {
+            loads.incrementAndGet();
+            return upstream.asMono();
+        });
+        Mono<String> second = flights.execute("USD/PEN", () -> {
+            loads.incrementAndGet();
+            return Mono.just("otra");
+        });
+
+        // Ambos suscritos mientras la llamada sigue en curso
+        String[] results = new String[2];
+        first.subscribe(value -> results[0] = value);
+        second.subscribe(value -> results[1] = value);
+        upstream.tryEmitValue("3.75");
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(results).containsExactly("3.75", "3.75");
+    }
+
+    @Test
+    void completedResultIsReusedWithinTtl() {
+        SingleFlight<String> flights = new SingleFlight<>(TTL, 100, value -> true);
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(flights.execute("k", () -> Mono.fromCallable(() -> "v" + loads.incrementAndGet())).block())
+                    .isEqualTo("v1");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void expiredResultIsLoadedAgain() throws InterruptedException {
+        SingleFlight<String> flights = new SingleFlight<>(Duration.ofMillis(20), 100, value -> true);
+        AtomicInteger loads = new AtomicInteger();
+
+        flights.execute("k", () -> Mono.fromCallable(() -> "v" + loads.incrementAndGet())).block();
+        Thread.sleep(50);
+
+        assertThat(flights.execute("k", () -> Mono.fromCallable(() -> "v" + loads.incrementAndGet())).block())
+                .isEqualTo("v2");
+    }
+
+    @Test
+    void errorsAreNotCached() {
+        SingleFlight<String> flights = new SingleFlight<>(TTL, 100, value -> true);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThatThrownBy(() -> flights.execute("k", () -> {
+            loads.incrementAndGet();
+            return Mono.<String>error(new IllegalStateException("caído"));
+        }).block()).hasMessageContaining("caído");
+        assertThat(flights.size()).isZero();
+
+        assertThat(flights.execute("k", () -> {
+            loads.incrementAndGet();
+            return Mono.just("ok");
+        }).block()).isEqualTo("ok");
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void nonCacheableResultsAreNotKept() {
+        SingleFlight<String> flights = new SingleFlight<>(TTL, 100, value -> !value.startsWith("error"));
+        AtomicInteger loads = new AtomicInteger();
+
+        flights.execute("k", () -> Mono.fromCallable(() -> "error " + loads.incrementAndGet())).block();
+        flights.execute("k", () -> Mono.fromCallable(() -> "error " + loads.incrementAndGet())).block();
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(flights.size()).isZero();
+    }
+
+    @Test
+    void inFlightEntriesCountAgainstTheCap() {
+        SingleFlight<String> flights = new SingleFlight<>(TTL, 3, value -> true);
+        Sinks.One<String> never = Sinks.one();
+
+        // Llamadas que no terminan nunca: ocupan el mapa hasta el máximo
+        for (int i = 0; i < 10; i++) {
+            flights.execute("k" + i, never::asMono).subscribe();
+        }
+        assertThat(flights.size()).isEqualTo(3);
+
+        // Con el mapa lleno, una clave nueva se ejecuta igualmente (sin agrupar)
+        assertThat(flights.execute("nueva", () -> Mono.just("ok")).block()).isEqualTo("ok");
+        assertThat(flights.size()).isEqualTo(3);
+    }
+}